@@ -6,6 +6,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -20,7 +21,7 @@ public class AuthenticationController {
     @ResponseStatus(HttpStatus.ACCEPTED)
     public ResponseEntity<?> register(
             @RequestBody @Valid RegistrationRequest request
-    ) throws MessagingException {
+    ) {
         service.register(request);
         return ResponseEntity.accepted().build();
     }
@@ -32,6 +33,23 @@ public class AuthenticationController {
         return ResponseEntity.ok(service.authenticate(request));
     }
 
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(
+            Authentication connectedUser
+    ) {
+        service.logout(connectedUser);
+    }
+
+    @PostMapping("/revoke")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void revoke(
+            @RequestBody @Valid RevokeTokenRequest request,
+            Authentication connectedUser
+    ) {
+        service.revoke(request, connectedUser);
+    }
+
     @GetMapping("/activate-account")
     public void confirm(
             @RequestParam String token
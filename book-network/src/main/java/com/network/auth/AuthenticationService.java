@@ -3,24 +3,32 @@ package com.network.auth;
 import com.network.email.EmailService;
 import com.network.email.EmailTemplateName;
 import com.network.role.RoleRepository;
+import com.network.exception.OperationNotPermittedException;
+import com.network.security.JwtClaims;
 import com.network.security.JwtService;
+import com.network.security.TokenRevocationService;
 import com.network.user.Token;
 import com.network.user.TokenRepository;
 import com.network.user.User;
+import com.network.user.UserPrincipal;
 import com.network.user.UserRepository;
+import io.jsonwebtoken.JwtException;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -33,31 +41,38 @@ public class AuthenticationService {
     private final EmailService emailService;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
 
     /**
+     * Saves the user, the activation token and the activation mail in one transaction.
+     *
      * @param request
-     * @throws MessagingException
      */
-    public void register(RegistrationRequest request) throws MessagingException {
-        var userRole = roleRepository.findByName("USER")
-                .orElseThrow(() -> new IllegalArgumentException("ROLE USER was not initialized"));
-        var user = User.builder()
-                .firstname(request.getFirstname())
-                .lastname(request.getLastname())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .accountLocked(false)
-                .enabled(false)
-                .roles(List.of(userRole))
-                .build();
-        userRepository.save(user);
-        sendValidationEmail(user);
+    public void register(RegistrationRequest request) {
+        // hashed before the transaction, a hash waiting for the hashing pool must not hold a connection
+        var password = passwordEncoder.encode(request.getPassword());
+        transactionTemplate.executeWithoutResult(status -> {
+            var userRole = roleRepository.findByName("USER")
+                    .orElseThrow(() -> new IllegalArgumentException("ROLE USER was not initialized"));
+            var user = User.builder()
+                    .firstname(request.getFirstname())
+                    .lastname(request.getLastname())
+                    .email(request.getEmail())
+                    .password(password)
+                    .accountLocked(false)
+                    .enabled(false)
+                    .roles(List.of(userRole))
+                    .build();
+            userRepository.save(user);
+            sendValidationEmail(user);
+        });
     }
 
-    private void sendValidationEmail(User user) throws MessagingException {
+    private void sendValidationEmail(User user) {
         var newToken = generateAndSaveActivationToken(user);
         // send email
         emailService.sendEmail(
@@ -84,7 +99,7 @@ public class AuthenticationService {
                 .user(user)
                 .build();
         tokenRepository.save(token);
-        return null;
+        return generatedToken;
     }
 
     /**
@@ -111,6 +126,7 @@ public class AuthenticationService {
         );
         var claims = new HashMap<String, Object>();
         var user = ((User)auth.getPrincipal());
+        claims.put("userId", user.getId());
         claims.put("fullName", user.getFullName());
         var jwtToken = jwtService.generateToken(claims, (User) auth.getPrincipal());
         return AuthenticationResponse.builder()
@@ -132,4 +148,28 @@ public class AuthenticationService {
         savedToken.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(savedToken);
     }
+
+    /**
+     * Revokes the token the request was authenticated with.
+     */
+    public void logout(Authentication connectedUser) {
+        tokenRevocationService.revoke((JwtClaims) connectedUser.getCredentials());
+    }
+
+    /**
+     * Revokes another token of the connected user, e.g. one issued to a lost device.
+     */
+    public void revoke(RevokeTokenRequest request, Authentication connectedUser) {
+        var user = (UserPrincipal) connectedUser.getPrincipal();
+        JwtClaims claims;
+        try {
+            claims = jwtService.validate(request.getToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new OperationNotPermittedException("The token is invalid or already expired");
+        }
+        if (claims.tokenId() == null || !Objects.equals(claims.userId(), user.getId())) {
+            throw new OperationNotPermittedException("You cannot revoke a token of another user");
+        }
+        tokenRevocationService.revoke(claims);
+    }
 }
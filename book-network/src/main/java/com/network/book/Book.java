@@ -1,6 +1,7 @@
 package com.network.book;
 
 import com.network.common.BaseEntity;
+import com.network.config.CacheConfig;
 import com.network.feedback.Feedback;
 import com.network.history.BookTransactionHistory;
 import com.network.user.User;
@@ -10,7 +11,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
@@ -19,6 +24,16 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_created_date_id", columnList = "createdDate, id"),
+        @Index(name = "idx_book_owner_created_date_id", columnList = "owner_id, createdDate, id"),
+        @Index(name = "idx_book_loan_borrower_id", columnList = "loanBorrowerId"),
+        // the orphaned file sweeper looks files up by key
+        @Index(name = "idx_book_cover", columnList = "bookCover"),
+        @Index(name = "idx_book_cover_thumbnail", columnList = "bookCoverThumbnail"),
+        @Index(name = "idx_book_cover_medium", columnList = "bookCoverMedium")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.BOOKS)
 public class Book extends BaseEntity {
 
     private String title;
@@ -26,10 +41,36 @@ public class Book extends BaseEntity {
     private String isbn;
     private String synopsis;
     private String bookCover;
+    private String bookCoverThumbnail;
+    private String bookCoverMedium;
     private boolean archived;
     private boolean shareable;
+    private Integer loanPeriodDays;
 
-    @ManyToOne
+    // rating aggregate, maintained by FeedbackService and rebuilt by BookRatingReconciler
+    @ColumnDefault("0")
+    private double ratingSum;
+    @ColumnDefault("0")
+    private int ratingCount;
+    @ColumnDefault("0")
+    private int oneStarCount;
+    @ColumnDefault("0")
+    private int twoStarCount;
+    @ColumnDefault("0")
+    private int threeStarCount;
+    @ColumnDefault("0")
+    private int fourStarCount;
+    @ColumnDefault("0")
+    private int fiveStarCount;
+
+    // current loan, maintained by BookService under the book row lock so availability is read from the row
+    private Integer loanId;
+    private Integer loanBorrowerId;
+    @Enumerated(EnumType.STRING)
+    private LoanState loanState;
+    private LocalDateTime loanSince;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
@@ -41,13 +82,51 @@ public class Book extends BaseEntity {
 
     @Transient
     public double getRate() {
-        if (feedbacks == null || feedbacks.isEmpty()) {
+        return computeRate(ratingSum, ratingCount);
+    }
+
+    @Transient
+    public boolean isAvailable() {
+        return isAvailable(archived, shareable, loanState);
+    }
+
+    /**
+     * Counts one more note, to be called on a row locked so concurrent feedbacks are applied one after the other.
+     */
+    public void addRating(double note) {
+        ratingSum += note;
+        ratingCount++;
+        switch (BookRatingAggregate.toStars(note)) {
+            case 1 -> oneStarCount++;
+            case 2 -> twoStarCount++;
+            case 3 -> threeStarCount++;
+            case 4 -> fourStarCount++;
+            default -> fiveStarCount++;
+        }
+    }
+
+    /**
+     * Replaces the rating totals, to be called on a row locked before the aggregate was computed.
+     */
+    public void applyRating(BookRatingAggregate rating) {
+        ratingSum = rating.getRatingSum();
+        ratingCount = rating.getRatingCount();
+        oneStarCount = rating.getOneStarCount();
+        twoStarCount = rating.getTwoStarCount();
+        threeStarCount = rating.getThreeStarCount();
+        fourStarCount = rating.getFourStarCount();
+        fiveStarCount = rating.getFiveStarCount();
+    }
+
+    public static boolean isAvailable(boolean archived, boolean shareable, LoanState loanState) {
+        return !archived && shareable && !LoanState.isOpen(loanState);
+    }
+
+    public static double computeRate(double ratingSum, int ratingCount) {
+        if (ratingCount == 0) {
             return 0.0;
         }
-        var rate = this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
+        var rate = ratingSum / ratingCount;
         return Math.round(rate * 10.0) / 10.0;
     }
 }
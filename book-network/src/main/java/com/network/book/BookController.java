@@ -1,14 +1,26 @@
 package com.network.book;
 
 import com.network.common.PageResponse;
+import com.network.file.CoverSize;
+import com.network.file.FileUtils;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("books")
@@ -17,6 +29,8 @@ import org.springframework.web.multipart.MultipartFile;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
 
     @PostMapping
     public ResponseEntity<Integer> saveBook(
@@ -26,6 +40,18 @@ public class BookController {
         return ResponseEntity.ok(bookService.save(bookRequest, connectedUser));
     }
 
+    /**
+     * Bulk import from a CSV (header: title,authorName,isbn,synopsis,shareable,loanPeriodDays) or NDJSON body.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<BookImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body,
+            Authentication connectedUser
+    ) throws IOException {
+        return ResponseEntity.ok(bookImportService.importBooks(body, contentType, connectedUser));
+    }
+
     @GetMapping("/{book-id}")
     public ResponseEntity<BookResponse> findBookById(
             @PathVariable("book-id") Integer bookId
@@ -37,36 +63,62 @@ public class BookController {
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllBooks(page, size, cursor, connectedUser));
     }
 
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, cursor, connectedUser));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBooksByOwner(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false) ExportFormat format,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, connectedUser));
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + format.getExtension())
+                .body(bookExportService.exportBooksByOwner(format, connectedUser));
     }
 
     @GetMapping("/borrowed")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBorrowedBooksByOwner(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllBorrowedBooksByOwner(page, size, cursor, connectedUser));
     }
 
     @GetMapping("/returned")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, cursor, connectedUser));
+    }
+
+    @GetMapping("/returned/export")
+    public ResponseEntity<StreamingResponseBody> exportReturnedBooks(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false) ExportFormat format,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=lending-history." + format.getExtension())
+                .body(bookExportService.exportReturnedBooks(format, connectedUser));
     }
 
     @PatchMapping("/shareable/{book-id}")
@@ -119,4 +171,42 @@ public class BookController {
         bookService.uploadBookCoverPicture(bookId, connectedUser, file);
         return ResponseEntity.accepted().build();
     }
+
+    /**
+     * Redirects to the blob store when it hands out direct URLs, so the bytes never go through the application.
+     * Otherwise writes the cached bytes of a hot cover, or streams the cover file; Range, If-None-Match and
+     * If-Modified-Since are handled by Spring from the headers set here. Covers are content-addressed,
+     * so the file name is a strong ETag. Readable without a token given the version from the cover URL,
+     * see SecurityConfig.
+     */
+    @GetMapping("/cover/{book-id}")
+    public ResponseEntity<?> findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size", defaultValue = "ORIGINAL", required = false) CoverSize size,
+            @RequestParam(name = "v", required = false) String version
+    ) throws IOException {
+        var cover = bookService.findBookCover(bookId, size, version);
+        if (cover.directUrl() != null) {
+            // reusing the redirect keeps the signed URL, and so the browser cache entry of the cover, stable
+            var validFor = Duration.between(Instant.now(), cover.directUrl().expiresAt()).dividedBy(2);
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(cover.directUrl().uri())
+                    .cacheControl(CacheControl.maxAge(validFor.isNegative() ? Duration.ZERO : validFor).cachePrivate())
+                    .build();
+        }
+        if (cover.bytes() != null) {
+            // a Range request gets the whole cover, which HTTP allows and is cheaper than slicing a small file
+            return ResponseEntity.ok()
+                    .eTag(FileUtils.contentHash(cover.key()))
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(7)).cachePrivate())
+                    .contentType(FileUtils.contentType(cover.key()))
+                    .body(cover.bytes());
+        }
+        return ResponseEntity.ok()
+                .eTag(FileUtils.contentHash(cover.key()))
+                .lastModified(cover.resource().lastModified())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(7)).cachePrivate())
+                .contentType(FileUtils.contentType(cover.key()))
+                .body(cover.resource());
+    }
 }
@@ -0,0 +1,17 @@
+package com.network.book;
+
+import com.network.file.PresignedUrl;
+import org.springframework.core.io.Resource;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One of: a URL the client fetches the cover from directly, the cached cover bytes, or the cover to stream.
+ */
+public record BookCover(
+        String key,
+        PresignedUrl directUrl,
+        ByteBuffer bytes,
+        Resource resource
+) {
+}
@@ -0,0 +1,41 @@
+package com.network.book;
+
+import com.network.file.StoredFileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+import static java.io.File.separator;
+
+/**
+ * Rewrites covers saved as paths under the upload directory (./uploads/covers/9f/86/...) into blob store keys
+ * (covers/9f/86/...). Only rows still carrying the old prefix are touched, so it is a no-op once they are migrated.
+ * With the S3 store the files themselves still have to be copied to the bucket under the same keys.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookCoverKeyInitializer {
+
+    private final BookRepository bookRepository;
+    private final StoredFileRepository storedFileRepository;
+
+    @Value("${application.file.upload.photos-output-path}")
+    private String fileUploadPath;
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, allEntries = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateCoverPaths() {
+        var prefix = fileUploadPath + separator;
+        var books = bookRepository.stripCoverPathPrefix(prefix);
+        var files = storedFileRepository.stripPathPrefix(prefix);
+        if (books > 0 || files > 0) {
+            log.info("Cover paths turned into blob keys for {} books and {} stored files", books, files);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.network.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.network.history.CombinedBookTransactionHistoryRepository;
+import com.network.history.BorrowedBookSummary;
+import com.network.user.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Streams an owner's catalog and lending history straight from a database cursor to the response:
+ * rows are written as they are fetched, so an export costs one query and constant heap.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookExportService {
+
+    private static final List<String> BOOK_COLUMNS = List.of(
+            "id", "title", "authorName", "isbn", "synopsis", "rate", "archived", "shareable", "createdDate"
+    );
+    private static final List<String> HISTORY_COLUMNS = List.of(
+            "bookId", "title", "authorName", "isbn", "rate", "returned", "returnedApproved", "borrowedDate", "dueDate"
+    );
+
+    private final BookRepository bookRepository;
+    private final CombinedBookTransactionHistoryRepository historyRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponseBody exportBooksByOwner(ExportFormat format, Authentication connectedUser) {
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        return out -> export(
+                () -> bookRepository.streamAllByOwner(user.getId()),
+                BOOK_COLUMNS,
+                book -> Arrays.asList(
+                        book.id(),
+                        book.title(),
+                        book.authorName(),
+                        book.isbn(),
+                        book.synopsis(),
+                        Book.computeRate(book.ratingSum(), book.ratingCount()),
+                        book.archived(),
+                        book.shareable(),
+                        book.createdDate()
+                ),
+                format,
+                out
+        );
+    }
+
+    public StreamingResponseBody exportReturnedBooks(ExportFormat format, Authentication connectedUser) {
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        return out -> export(
+                () -> historyRepository.streamAllReturnedBooks(user.getId()),
+                HISTORY_COLUMNS,
+                (BorrowedBookSummary history) -> Arrays.asList(
+                        history.bookId(),
+                        history.title(),
+                        history.authorName(),
+                        history.isbn(),
+                        Book.computeRate(history.ratingSum(), history.ratingCount()),
+                        history.returned(),
+                        history.returnedApproved(),
+                        history.createdDate(),
+                        history.dueDate()
+                ),
+                format,
+                out
+        );
+    }
+
+    /**
+     * Runs on the async request thread; the read-only transaction keeps the cursor open while rows are written.
+     */
+    private <T> void export(
+            Supplier<Stream<T>> query,
+            List<String> columns,
+            Function<T, List<Object>> values,
+            ExportFormat format,
+            OutputStream out
+    ) throws IOException {
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (var rows = query.get()) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(rows, columns, values, out);
+                    } else {
+                        writeNdjson(rows, columns, values, out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void writeCsv(Stream<T> rows, List<String> columns, Function<T, List<Object>> values, OutputStream out) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        writer.write(String.join(",", columns));
+        writer.newLine();
+        var iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            var row = values.apply(iterator.next());
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escapeCsv(row.get(i)));
+            }
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, List<String> columns, Function<T, List<Object>> values, OutputStream out) throws IOException {
+        var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (var generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                var row = values.apply(iterator.next());
+                var json = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < columns.size(); i++) {
+                    json.put(columns.get(i), row.get(i));
+                }
+                writer.writeValue(generator, json);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        var text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,17 @@
+package com.network.book;
+
+import lombok.*;
+
+import java.util.Set;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookImportError {
+
+    // 1-based position of the record in the file, the CSV header excluded
+    private long row;
+    private Set<String> errors;
+}
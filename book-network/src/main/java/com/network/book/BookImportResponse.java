@@ -0,0 +1,18 @@
+package com.network.book;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookImportResponse {
+
+    private long imported;
+    private long rejected;
+    // capped, `rejected` is the total number of failed rows
+    private List<BookImportError> errors;
+}
@@ -0,0 +1,225 @@
+package com.network.book;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.common.CsvReader;
+import com.network.dashboard.UserDashboardService;
+import com.network.user.UserPrincipal;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Imports books from a CSV or NDJSON stream. Records are parsed one at a time, validated against the
+ * BookRequest constraints and inserted with JDBC batches, one transaction per chunk, so memory use
+ * does not depend on the size of the file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final String INSERT_BOOK = """
+            INSERT INTO book (title, author_name, isbn, synopsis, shareable, loan_period_days, archived, owner_id, created_by, created_date)
+            VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserDashboardService dashboardService;
+
+    @Value("${application.book.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.book.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public BookImportResponse importBooks(InputStream input, MediaType contentType, Authentication connectedUser) throws IOException {
+        var user = (UserPrincipal) connectedUser.getPrincipal();
+        var importer = new Importer(user.getId());
+        var reader = new BufferedReader(new InputStreamReader(input, UTF_8));
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            importCsv(reader, importer);
+        } else {
+            importNdjson(reader, importer);
+        }
+        importer.flush();
+        return importer.toResponse();
+    }
+
+    private void importCsv(BufferedReader reader, Importer importer) throws IOException {
+        var csv = new CsvReader(reader);
+        var header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        var columns = new HashMap<String, Integer>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        long row = 0;
+        List<String> fields;
+        while ((fields = csv.readRecord()) != null) {
+            row++;
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            Integer loanPeriodDays;
+            try {
+                loanPeriodDays = integerField(fields, columns, "loanperioddays");
+            } catch (NumberFormatException e) {
+                importer.reject(row, Set.of("Malformed loanPeriodDays: " + field(fields, columns, "loanperioddays")));
+                continue;
+            }
+            importer.add(row, new BookRequest(
+                    null,
+                    field(fields, columns, "title"),
+                    field(fields, columns, "authorname"),
+                    field(fields, columns, "isbn"),
+                    field(fields, columns, "synopsis"),
+                    Boolean.parseBoolean(field(fields, columns, "shareable")),
+                    loanPeriodDays
+            ));
+        }
+    }
+
+    private void importNdjson(BufferedReader reader, Importer importer) throws IOException {
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                importer.add(row, objectMapper.readValue(line, BookRequest.class));
+            } catch (JsonProcessingException e) {
+                importer.reject(row, Set.of("Malformed JSON: " + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        var index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    /**
+     * An absent or empty value keeps the configured default, as for a book saved through the API.
+     */
+    private Integer integerField(List<String> fields, Map<String, Integer> columns, String column) {
+        var value = field(fields, columns, column);
+        return value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
+    }
+
+    /**
+     * Accumulates one chunk of valid rows at a time and the (capped) error report.
+     */
+    private class Importer {
+
+        private final Integer ownerId;
+        private final List<BookRequest> chunk = new ArrayList<>();
+        private final List<Long> chunkRows = new ArrayList<>();
+        private final List<BookImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        private Importer(Integer ownerId) {
+            this.ownerId = ownerId;
+        }
+
+        void add(long row, BookRequest request) {
+            var violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.toSet()));
+                return;
+            }
+            chunk.add(request);
+            chunkRows.add(row);
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, Set<String> rowErrors) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BookImportError(row, rowErrors));
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            var createdDate = Timestamp.valueOf(LocalDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(
+                            INSERT_BOOK,
+                            chunk,
+                            chunk.size(),
+                            (statement, book) -> {
+                                statement.setString(1, book.title());
+                                statement.setString(2, book.authorName());
+                                statement.setString(3, book.isbn());
+                                statement.setString(4, book.synopsis());
+                                statement.setBoolean(5, book.shareable());
+                                statement.setObject(6, book.loanPeriodDays(), Types.INTEGER);
+                                statement.setInt(7, ownerId);
+                                statement.setInt(8, ownerId);
+                                statement.setTimestamp(9, createdDate);
+                            }
+                    );
+                    var shareable = (int) chunk.stream().filter(BookRequest::shareable).count();
+                    dashboardService.booksAdded(ownerId, chunk.size(), shareable, 0);
+                });
+                imported += chunk.size();
+            } catch (DataAccessException e) {
+                log.error("Book import chunk was not saved", e);
+                chunkRows.forEach(row -> reject(row, Set.of("The row could not be saved")));
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+
+        BookImportResponse toResponse() {
+            return BookImportResponse.builder()
+                    .imported(imported)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.network.book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+
+/**
+ * Copies loans that were opened before the loan state was kept on the book onto their book row.
+ * Only books without a loan state are touched, so it is a no-op once every book has been borrowed through BookService.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookLoanStateInitializer {
+
+    private final BookRepository bookRepository;
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, allEntries = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void materializeOpenLoans() {
+        var updated = bookRepository.materializeOpenLoans();
+        if (updated > 0) {
+            log.info("Loan state materialized for {} books", updated);
+        }
+    }
+}
@@ -1,11 +1,34 @@
 package com.network.book;
 
+import com.network.file.BlobStore;
+import com.network.file.CoverSize;
 import com.network.file.FileUtils;
-import com.network.history.BookTransactionHistory;
+import com.network.history.BorrowedBookSummary;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class BookMapper {
+
+    private final BlobStore blobStore;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    // responses are cached across users, so the origin is configured rather than taken from the request
+    @Value("${application.file.cover.base-url:}")
+    private String baseUrl;
+
+    // legacy clients still expecting the cover bytes inlined in the JSON
+    @Value("${application.file.cover.inline:false}")
+    private boolean inlineCover;
+
     public Book toBook(BookRequest bookRequest) {
         return Book.builder()
                 .id(bookRequest.id())
@@ -15,6 +38,7 @@ public class BookMapper {
                 .synopsis(bookRequest.synopsis())
                 .archived(false)
                 .shareable(bookRequest.shareable())
+                .loanPeriodDays(bookRequest.loanPeriodDays())
                 .build();
     }
 
@@ -28,20 +52,78 @@ public class BookMapper {
                 .rate(book.getRate())
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
+                .available(book.isAvailable())
                 .owner(book.getOwner().getFullName())
-                .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+                .cover(inlineCover ? FileUtils.readFileFromLocation(blobStore, book.getBookCover()) : null)
+                .coverUrl(toCoverUrl(book.getId(), book.getBookCover()))
+                .coverThumbnailUrl(toCoverThumbnailUrl(book.getId(), book.getBookCover(), book.getBookCoverThumbnail()))
+                .build();
+    }
+
+    public BookResponse toBookResponse(BookSummary book) {
+        return BookResponse.builder()
+                .id(book.id())
+                .title(book.title())
+                .authorName(book.authorName())
+                .isbn(book.isbn())
+                .synopsis(book.synopsis())
+                .rate(Book.computeRate(book.ratingSum(), book.ratingCount()))
+                .archived(book.archived())
+                .shareable(book.shareable())
+                .available(Book.isAvailable(book.archived(), book.shareable(), book.loanState()))
+                .owner(book.owner())
+                .cover(inlineCover ? FileUtils.readFileFromLocation(blobStore, book.bookCover()) : null)
+                .coverUrl(toCoverUrl(book.id(), book.bookCover()))
+                .coverThumbnailUrl(toCoverThumbnailUrl(book.id(), book.bookCover(), book.bookCoverThumbnail()))
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory transactionHistory) {
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookSummary borrowedBook) {
         return BorrowedBookResponse.builder()
-                .id(transactionHistory.getBook().getId())
-                .title(transactionHistory.getBook().getTitle())
-                .authorName(transactionHistory.getBook().getAuthorName())
-                .isbn(transactionHistory.getBook().getIsbn())
-                .rate(transactionHistory.getBook().getRate())
-                .returned(transactionHistory.isReturned())
-                .returnedApprove(transactionHistory.isReturnedApproved())
+                .id(borrowedBook.bookId())
+                .title(borrowedBook.title())
+                .authorName(borrowedBook.authorName())
+                .isbn(borrowedBook.isbn())
+                .owner(borrowedBook.owner())
+                .rate(Book.computeRate(borrowedBook.ratingSum(), borrowedBook.ratingCount()))
+                .returned(borrowedBook.returned())
+                .returnedApprove(borrowedBook.returnedApproved())
+                .dueDate(borrowedBook.dueDate())
                 .build();
     }
+
+    /**
+     * The version changes whenever a new cover is uploaded, so clients can cache the URL forever.
+     */
+    private String toCoverUrl(Integer bookId, String bookCover) {
+        if (StringUtils.isBlank(bookCover)) {
+            return null;
+        }
+        return coverEndpoint(bookId)
+                .queryParam("v", FileUtils.contentHash(bookCover))
+                .toUriString();
+    }
+
+    /**
+     * Until the thumbnail is rendered the endpoint falls back to the original, the version then changes with it.
+     */
+    private String toCoverThumbnailUrl(Integer bookId, String bookCover, String bookCoverThumbnail) {
+        if (StringUtils.isBlank(bookCover)) {
+            return null;
+        }
+        var version = StringUtils.isBlank(bookCoverThumbnail) ? bookCover : bookCoverThumbnail;
+        return coverEndpoint(bookId)
+                .queryParam("size", CoverSize.THUMBNAIL)
+                .queryParam("v", FileUtils.contentHash(version))
+                .toUriString();
+    }
+
+    /**
+     * Prefixed with the configured base URL when the UI is served from another origin, context-relative otherwise.
+     */
+    private UriComponentsBuilder coverEndpoint(Integer bookId) {
+        return UriComponentsBuilder.fromUriString(StringUtils.removeEnd(baseUrl, "/") + StringUtils.removeEnd(contextPath, "/"))
+                .path("/books/cover/{bookId}")
+                .uriVariables(Map.of("bookId", bookId));
+    }
 }
@@ -0,0 +1,55 @@
+package com.network.book;
+
+import lombok.Getter;
+
+/**
+ * Rating totals of one book, as computed from the feedback table.
+ */
+@Getter
+public class BookRatingAggregate {
+
+    private final Integer bookId;
+    private final double ratingSum;
+    private final int ratingCount;
+    private final int oneStarCount;
+    private final int twoStarCount;
+    private final int threeStarCount;
+    private final int fourStarCount;
+    private final int fiveStarCount;
+
+    // used by the JPQL constructor expression, hence the SUM / COUNT result types
+    public BookRatingAggregate(
+            Integer bookId,
+            Double ratingSum,
+            Long ratingCount,
+            Long oneStarCount,
+            Long twoStarCount,
+            Long threeStarCount,
+            Long fourStarCount,
+            Long fiveStarCount
+    ) {
+        this.bookId = bookId;
+        this.ratingSum = ratingSum == null ? 0.0 : ratingSum;
+        this.ratingCount = toInt(ratingCount);
+        this.oneStarCount = toInt(oneStarCount);
+        this.twoStarCount = toInt(twoStarCount);
+        this.threeStarCount = toInt(threeStarCount);
+        this.fourStarCount = toInt(fourStarCount);
+        this.fiveStarCount = toInt(fiveStarCount);
+    }
+
+    public static BookRatingAggregate empty(Integer bookId) {
+        return new BookRatingAggregate(bookId, 0.0, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    /**
+     * Histogram bucket of a note: 1 to 5 stars, rounded half up (the same bounds are used in FeedbackRepository).
+     */
+    public static int toStars(double note) {
+        return (int) Math.max(1, Math.min(5, Math.round(note)));
+    }
+
+    private static int toInt(Long value) {
+        return value == null ? 0 : value.intValue();
+    }
+}
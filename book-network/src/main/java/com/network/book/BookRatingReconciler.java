@@ -0,0 +1,67 @@
+package com.network.book;
+
+import com.network.feedback.FeedbackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+
+/**
+ * Rebuilds the rating aggregate of every book from the feedback table, one batch of books per transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookRatingReconciler {
+
+    private final BookRepository bookRepository;
+    private final FeedbackRepository feedbackRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.book.rating.reconcile.batch-size:500}")
+    private int batchSize;
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, allEntries = true)
+    @Scheduled(
+            initialDelayString = "${application.book.rating.reconcile.initial-delay:PT1M}",
+            fixedDelayString = "${application.book.rating.reconcile.interval:PT24H}"
+    )
+    public void reconcile() {
+        var lastId = 0;
+        var reconciled = 0;
+        List<Integer> bookIds;
+        do {
+            bookIds = bookRepository.findIdsAfter(lastId, PageRequest.ofSize(batchSize));
+            if (!bookIds.isEmpty()) {
+                reconcileBatch(bookIds);
+                lastId = bookIds.get(bookIds.size() - 1);
+                reconciled += bookIds.size();
+            }
+        } while (bookIds.size() == batchSize);
+        log.info("Rating aggregate reconciled for {} books", reconciled);
+    }
+
+    private void reconcileBatch(List<Integer> bookIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // locked before the feedback is read: a rating added meanwhile waits for the totals to be
+            // rebuilt and is then applied on top of them, instead of being overwritten
+            var books = bookRepository.findAllByIdForUpdate(bookIds);
+            var aggregates = feedbackRepository.aggregateRatingsByBookIds(bookIds)
+                    .stream()
+                    .collect(Collectors.toMap(BookRatingAggregate::getBookId, Function.identity()));
+            books.forEach(book -> book.applyRating(
+                    aggregates.getOrDefault(book.getId(), BookRatingAggregate.empty(book.getId()))
+            ));
+        });
+    }
+}
@@ -1,19 +1,200 @@
 package com.network.book;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
 
+    @Query("""
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id = :bookId
+            """)
+    Optional<BookSummary> findSummaryById(@Param("bookId") Integer bookId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("""
             SELECT book
             FROM Book book
+            WHERE book.id = :bookId
+            """)
+    Optional<Book> findByIdForUpdate(@Param("bookId") Integer bookId);
+
+    @Query(value = """
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = false
+            AND owner.id != :userId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
             WHERE book.archived = false
             AND book.shareable = false
             AND book.owner.id != :userId
             """)
-    Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+    Page<BookSummary> findAllDisplayableBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = false
+            AND owner.id != :userId
+            AND (book.createdDate < :createdDate OR (book.createdDate = :createdDate AND book.id < :id))
+            ORDER BY book.createdDate DESC, book.id DESC
+            """)
+    List<BookSummary> findAllDisplayableBooksBefore(
+            @Param("userId") Integer userId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    @Query(value = """
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.owner.id = :ownerId
+            """)
+    Page<BookSummary> findAllByOwner(Pageable pageable, @Param("ownerId") Integer ownerId);
+
+    @Query("""
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            AND (book.createdDate < :createdDate OR (book.createdDate = :createdDate AND book.id < :id))
+            ORDER BY book.createdDate DESC, book.id DESC
+            """)
+    List<BookSummary> findAllByOwnerBefore(
+            @Param("ownerId") Integer ownerId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.network.book.BookSummary(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                CONCAT(owner.firstname, ' ', owner.lastname),
+                book.bookCover, book.bookCoverThumbnail, book.ratingSum, book.ratingCount, book.archived, book.shareable, book.loanState, book.createdDate
+            )
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            ORDER BY book.id
+            """)
+    Stream<BookSummary> streamAllByOwner(@Param("ownerId") Integer ownerId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE book
+            SET loan_id = history.id,
+                loan_borrower_id = history.user_id,
+                loan_state = CASE WHEN history.returned THEN 'RETURNED' ELSE 'BORROWED' END,
+                loan_since = history.created_date
+            FROM book_transaction_history history
+            WHERE history.book_id = book.id
+            AND history.returned_approved = false
+            AND book.loan_state IS NULL
+            """, nativeQuery = true)
+    int materializeOpenLoans();
+
+    /**
+     * Locks the books in id order, so two batches overlapping on some books cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT book
+            FROM Book book
+            WHERE book.id IN :bookIds
+            ORDER BY book.id
+            """)
+    List<Book> findAllByIdForUpdate(@Param("bookIds") List<Integer> bookIds);
+
+    @Query("""
+            SELECT book.id
+            FROM Book book
+            WHERE book.id > :lastId
+            ORDER BY book.id
+            """)
+    List<Integer> findIdsAfter(@Param("lastId") Integer lastId, Pageable pageable);
+
+    /**
+     * Turns covers stored as file system paths, from before covers went through the blob store, into keys.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE book
+            SET book_cover = CASE WHEN starts_with(book_cover, :prefix) THEN substr(book_cover, length(:prefix) + 1) ELSE book_cover END,
+                book_cover_thumbnail = CASE WHEN starts_with(book_cover_thumbnail, :prefix) THEN substr(book_cover_thumbnail, length(:prefix) + 1) ELSE book_cover_thumbnail END,
+                book_cover_medium = CASE WHEN starts_with(book_cover_medium, :prefix) THEN substr(book_cover_medium, length(:prefix) + 1) ELSE book_cover_medium END
+            WHERE starts_with(book_cover, :prefix)
+            OR starts_with(book_cover_thumbnail, :prefix)
+            OR starts_with(book_cover_medium, :prefix)
+            """, nativeQuery = true)
+    int stripCoverPathPrefix(@Param("prefix") String prefix);
+
+    /**
+     * @return the keys among the given ones that a book uses as its cover or one of its renditions
+     */
+    @Query("""
+            SELECT book.bookCover FROM Book book WHERE book.bookCover IN :keys
+            UNION
+            SELECT book.bookCoverThumbnail FROM Book book WHERE book.bookCoverThumbnail IN :keys
+            UNION
+            SELECT book.bookCoverMedium FROM Book book WHERE book.bookCoverMedium IN :keys
+            """)
+    List<String> findReferencedCovers(@Param("keys") Collection<String> keys);
 }
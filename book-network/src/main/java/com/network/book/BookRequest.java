@@ -2,6 +2,7 @@ package com.network.book;
 
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 
 public record BookRequest(
         Integer id,
@@ -17,6 +18,9 @@ public record BookRequest(
         @NotNull(message = "103")
         @NotEmpty(message = "103")
         String synopsis,
-        boolean shareable
+        boolean shareable,
+        // days a borrower may keep the book, the configured default period when absent
+        @Positive(message = "104")
+        Integer loanPeriodDays
 ) {
 }
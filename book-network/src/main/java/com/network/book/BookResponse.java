@@ -16,7 +16,10 @@ public class BookResponse {
     private String synopsis;
     private String owner;
     private byte[] cover;
+    private String coverUrl;
+    private String coverThumbnailUrl;
     private double rate;
     private boolean archived;
     private boolean shareable;
+    private boolean available;
 }
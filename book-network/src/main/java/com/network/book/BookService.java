@@ -1,47 +1,101 @@
 package com.network.book;
 
+import com.network.common.Cursor;
 import com.network.common.PageResponse;
+import com.network.common.StripedLock;
+import com.network.dashboard.UserDashboardService;
 import com.network.exception.OperationNotPermittedException;
+import com.network.file.BlobStore;
+import com.network.file.CoverBytesCache;
+import com.network.file.CoverSize;
 import com.network.file.FileStorageService;
+import com.network.file.FileUtils;
 import com.network.history.BookTransactionHistory;
+import com.network.history.BookTransactionHistoryArchiver;
 import com.network.history.BookTransactionHistoryRepository;
-import com.network.user.User;
+import com.network.history.BorrowedBookSummary;
+import com.network.history.CombinedBookTransactionHistoryRepository;
+import com.network.user.UserPrincipal;
+import com.network.user.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+import static com.network.file.CoverSize.MEDIUM;
+import static com.network.file.CoverSize.THUMBNAIL;
 
-import static com.network.book.BookSpecification.withOwnerId;
 
 @Service
 @RequiredArgsConstructor
 public class BookService {
 
+    // createdDate alone is not unique, the id tie-breaker keeps offset and cursor pages stable
+    private static final Sort KEYSET_SORT = Sort.by("createdDate").descending().and(Sort.by("id").descending());
+    private static final int LOAN_LOCK_STRIPES = 256;
+
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository historyRepository;
+    private final CombinedBookTransactionHistoryRepository combinedHistoryRepository;
+    private final BookTransactionHistoryArchiver historyArchiver;
     private final BookMapper bookMapper;
     private final FileStorageService fileStorageService;
+    private final BlobStore blobStore;
+    private final CoverBytesCache coverBytesCache;
+    private final CoverRenditionService coverRenditionService;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDashboardService dashboardService;
+    private final UserRepository userRepository;
+    private final StripedLock loanLocks = new StripedLock(LOAN_LOCK_STRIPES);
+
+    @Value("${application.book.loan.default-period:P14D}")
+    private Duration defaultLoanPeriod;
+
+    @Transactional
     public Integer save(BookRequest bookRequest, Authentication connectedUser) {
-        var user = ((User) connectedUser.getPrincipal());
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
         var book = bookMapper.toBook(bookRequest);
-        book.setOwner(user);
-        return bookRepository.save(book).getId();
+        book.setOwner(userRepository.getReferenceById(user.getId()));
+        var bookId = bookRepository.save(book).getId();
+        dashboardService.booksAdded(user.getId(), 1, book.isShareable() ? 1 : 0, book.isArchived() ? 1 : 0);
+        return bookId;
     }
 
+    @Cacheable(cacheNames = BOOK_RESPONSES, key = "#bookId")
     public BookResponse findById(Integer bookId) {
-        return bookRepository.findById(bookId)
+        return bookRepository.findSummaryById(bookId)
                 .map(bookMapper::toBookResponse)
                 .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
     }
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
-        var user = ((User) connectedUser.getPrincipal());
-        var pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+    public PageResponse<BookResponse> findAllBooks(int page, int size, String cursor, Authentication connectedUser) {
+        checkPageRequest(page, size);
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        if (cursor != null) {
+            var position = Cursor.decode(cursor);
+            var books = bookRepository.findAllDisplayableBooksBefore(
+                    user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            return toSliceResponse(books, size, bookMapper::toBookResponse, BookSummary::cursor);
+        }
+        var pageable = PageRequest.of(page, size, KEYSET_SORT);
         var books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
         var bookResponses = books.stream()
                 .map(bookMapper::toBookResponse)
@@ -53,14 +107,22 @@ public class BookService {
                 books.getTotalElements(),
                 books.getTotalPages(),
                 books.isFirst(),
-                books.isLast()
+                books.isLast(),
+                nextCursor(books, BookSummary::cursor)
         );
     }
 
-    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
-        var user = ((User) connectedUser.getPrincipal());
-        var pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        var books = bookRepository.findAll(withOwnerId(user.getId()), pageable);
+    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, String cursor, Authentication connectedUser) {
+        checkPageRequest(page, size);
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        if (cursor != null) {
+            var position = Cursor.decode(cursor);
+            var books = bookRepository.findAllByOwnerBefore(
+                    user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            return toSliceResponse(books, size, bookMapper::toBookResponse, BookSummary::cursor);
+        }
+        var pageable = PageRequest.of(page, size, KEYSET_SORT);
+        var books = bookRepository.findAllByOwner(pageable, user.getId());
         var bookResponse = books.stream()
                 .map(bookMapper::toBookResponse)
                 .toList();
@@ -71,14 +133,29 @@ public class BookService {
                 books.getTotalElements(),
                 books.getTotalPages(),
                 books.isFirst(),
-                books.isLast()
+                books.isLast(),
+                nextCursor(books, BookSummary::cursor)
         );
     }
 
-    public PageResponse<BorrowedBookResponse> findAllBorrowedBooksByOwner(int page, int size, Authentication connectedUser) {
-        var user = ((User) connectedUser.getPrincipal());
-        var pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+    public PageResponse<BorrowedBookResponse> findAllBorrowedBooksByOwner(int page, int size, String cursor, Authentication connectedUser) {
+        checkPageRequest(page, size);
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        if (cursor != null) {
+            var position = Cursor.decode(cursor);
+            var histories = historyRepository.findAllBorrowedBooksBefore(
+                    user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            if (reachesArchive(histories, size + 1)) {
+                histories = combinedHistoryRepository.findAllBorrowedBooksBefore(
+                        user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            }
+            return toSliceResponse(histories, size, bookMapper::toBorrowedBookResponse, BorrowedBookSummary::cursor);
+        }
+        var pageable = PageRequest.of(page, size, KEYSET_SORT);
         var bookTransactionHistories = historyRepository.findAllBorrowedBooks(pageable, user.getId());
+        if (reachesArchive(bookTransactionHistories)) {
+            bookTransactionHistories = combinedHistoryRepository.findAllBorrowedBooks(user.getId(), pageable);
+        }
         var borrowedBookResponse = bookTransactionHistories.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
@@ -89,13 +166,28 @@ public class BookService {
                 bookTransactionHistories.getTotalElements(),
                 bookTransactionHistories.getTotalPages(),
                 bookTransactionHistories.isFirst(),
-                bookTransactionHistories.isLast()
+                bookTransactionHistories.isLast(),
+                nextCursor(bookTransactionHistories, BorrowedBookSummary::cursor)
         );
     }
-    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
-        var user = ((User) connectedUser.getPrincipal());
-        var pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, String cursor, Authentication connectedUser) {
+        checkPageRequest(page, size);
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        if (cursor != null) {
+            var position = Cursor.decode(cursor);
+            var histories = historyRepository.findAllReturnedBooksBefore(
+                    user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            if (reachesArchive(histories, size + 1)) {
+                histories = combinedHistoryRepository.findAllReturnedBooksBefore(
+                        user.getId(), position.createdDate(), position.id(), Limit.of(size + 1));
+            }
+            return toSliceResponse(histories, size, bookMapper::toBorrowedBookResponse, BorrowedBookSummary::cursor);
+        }
+        var pageable = PageRequest.of(page, size, KEYSET_SORT);
         var returnedBook = historyRepository.findAllReturnedBooks(pageable, user.getId());
+        if (reachesArchive(returnedBook)) {
+            returnedBook = combinedHistoryRepository.findAllReturnedBooks(user.getId(), pageable);
+        }
         var returnedBookResponse = returnedBook.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
@@ -106,100 +198,263 @@ public class BookService {
                 returnedBook.getTotalElements(),
                 returnedBook.getTotalPages(),
                 returnedBook.isFirst(),
-                returnedBook.isLast()
+                returnedBook.isLast(),
+                nextCursor(returnedBook, BorrowedBookSummary::cursor)
         );
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
     public Integer updateShareAbleStatus(Integer bookId, Authentication connectedUser) {
-        var book = bookRepository.findById(bookId)
+        var book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-        var user = (User) connectedUser.getPrincipal();
+        var user = (UserPrincipal) connectedUser.getPrincipal();
         if (!Objects.equals(book.getOwner().getId(), user.getId())) {
             // throw an exception
             throw new OperationNotPermittedException("You cannot other update books shareable status");
         }
         book.setShareable(!book.isShareable());
         bookRepository.save(book);
+        dashboardService.shareableChanged(user.getId(), book.isShareable());
         return bookId;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
     public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
-        var book = bookRepository.findById(bookId)
+        var book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-        var user = (User) connectedUser.getPrincipal();
+        var user = (UserPrincipal) connectedUser.getPrincipal();
         if (!Objects.equals(book.getOwner().getId(), user.getId())) {
             // throw an exception
             throw new OperationNotPermittedException("You cannot update others books archive status");
         }
         book.setArchived(!book.isArchived());
         bookRepository.save(book);
+        dashboardService.archivedChanged(user.getId(), book.isArchived());
         return bookId;
     }
 
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
     public Integer borrowBooks(Integer bookId, Authentication connectedUser) {
-        var user = (User) connectedUser.getPrincipal();
-        var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
-        if (book.isArchived() || !book.isShareable()) {
-            throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
+        var user = (UserPrincipal) connectedUser.getPrincipal();
+        return inLoanTransaction(bookId, book -> {
+            if (book.isArchived() || !book.isShareable()) {
+                throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
+            }
+            if (Objects.equals(book.getOwner().getId(), user.getId())) {
+                throw new OperationNotPermittedException("You cannot borrow your own book");
+            }
+            // any open loan blocks the book, not only one held by the requesting user
+            if (LoanState.isOpen(book.getLoanState())) {
+                throw new OperationNotPermittedException("The requested book is already borrowed");
+            }
+            var loanPeriod = book.getLoanPeriodDays() == null ? defaultLoanPeriod : Duration.ofDays(book.getLoanPeriodDays());
+            var transactionBookHistory = BookTransactionHistory.builder()
+                    .user(userRepository.getReferenceById(user.getId()))
+                    .book(book)
+                    .returned(false)
+                    .returnedApproved(false)
+                    .dueDate(LocalDateTime.now().plus(loanPeriod))
+                    .build();
+            var loanId = historyRepository.save(transactionBookHistory).getId();
+            updateLoan(book, loanId, user.getId(), LoanState.BORROWED);
+            dashboardService.bookBorrowed(book.getOwner().getId(), user.getId());
+            return loanId;
+        });
+    }
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
+    public Integer returnedBorrowBooks(Integer bookId, Authentication connectedUser) {
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        return inLoanTransaction(bookId, book -> {
+            if (book.isArchived() || !book.isShareable()) {
+                throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
+            }
+            if (Objects.equals(book.getOwner().getId(), user.getId())) {
+                throw new OperationNotPermittedException("You cannot borrow or return your own book");
+            }
+            if (book.getLoanState() != LoanState.BORROWED || !Objects.equals(book.getLoanBorrowerId(), user.getId())) {
+                throw new OperationNotPermittedException("You did not borrow this book");
+            }
+            var bookTransactionHistory = historyRepository.findById(book.getLoanId())
+                    .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
+            bookTransactionHistory.setReturned(true);
+            updateLoan(book, book.getLoanId(), user.getId(), LoanState.RETURNED);
+            dashboardService.bookReturned(book.getOwner().getId(), user.getId());
+            return historyRepository.save(bookTransactionHistory).getId();
+        });
+    }
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
+    public Integer approveReturnBooks(Integer bookId, Authentication connectedUser) {
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        return inLoanTransaction(bookId, book -> {
+            if (book.isArchived() || !book.isShareable()) {
+                throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
+            }
+            if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+                throw new OperationNotPermittedException("You cannot approve the return of a book you do not own");
+            }
+            if (book.getLoanState() != LoanState.RETURNED) {
+                throw new OperationNotPermittedException("The book is not returned yet. You cannot approve its return");
+            }
+            var bookTransactionHistory = historyRepository.findById(book.getLoanId())
+                    .orElseThrow(() -> new OperationNotPermittedException("The book is not returned yet. You cannot approve its return"));
+            bookTransactionHistory.setReturnedApproved(true);
+            updateLoan(book, book.getLoanId(), book.getLoanBorrowerId(), LoanState.APPROVED);
+            dashboardService.returnApproved(user.getId());
+            return historyRepository.save(bookTransactionHistory).getId();
+        });
+    }
+
+    // the book is managed and row-locked here, the change is flushed with the history row
+    private void updateLoan(Book book, Integer loanId, Integer borrowerId, LoanState state) {
+        book.setLoanId(loanId);
+        book.setLoanBorrowerId(borrowerId);
+        book.setLoanState(state);
+        book.setLoanSince(LocalDateTime.now());
+    }
+
+    /**
+     * Loan changes on a book are serialized by its row lock, so the availability check and the write
+     * cannot interleave across nodes. The striped lock queues same-book requests of this node in memory
+     * instead of on pooled connections waiting for the row; it is held until the transaction has committed.
+     */
+    private <T> T inLoanTransaction(Integer bookId, Function<Book, T> action) {
+        return loanLocks.callLocked(bookId, () -> transactionTemplate.execute(status -> {
+            var book = bookRepository.findByIdForUpdate(bookId)
+                    .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
+            return action.apply(book);
+        }));
+    }
+
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#bookId")
+    public void uploadBookCoverPicture(Integer bookId, Authentication connectedUser, MultipartFile file) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("No found with ID:: " + bookId);
         }
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow your own book");
+        // a failed upload throws before the book is touched, it keeps its cover
+        var bookCover = fileStorageService.saveFile(file).getPath();
+        // the same content may already have been uploaded and rendered for another book
+        var thumbnail = existingRendition(bookCover, THUMBNAIL);
+        var medium = existingRendition(bookCover, MEDIUM);
+        List<String> replaced;
+        try {
+            replaced = transactionTemplate.execute(status -> {
+                // the previous cover is read under the row lock, concurrent uploads each release the one they replaced
+                var book = bookRepository.findByIdForUpdate(bookId)
+                        .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
+                var previousCover = book.getBookCover();
+                var previousCovers = Objects.equals(previousCover, bookCover) ? List.<String>of()
+                        : Stream.of(previousCover, book.getBookCoverThumbnail(), book.getBookCoverMedium())
+                                .filter(Objects::nonNull)
+                                .toList();
+                book.setBookCover(bookCover);
+                book.setBookCoverThumbnail(thumbnail);
+                book.setBookCoverMedium(medium);
+                fileStorageService.removeReference(previousCover);
+                return previousCovers;
+            });
+        } catch (RuntimeException e) {
+            // the stored file came with a reference for this book
+            fileStorageService.removeReference(bookCover);
+            throw e;
         }
-        var isAlreadyBorrowed = historyRepository.isAlreadyBorrowedByUser(bookId, user.getId());
-        if (isAlreadyBorrowed) {
-            throw new OperationNotPermittedException("The requested book is already borrowed");
+        // the cover URLs now carry the new version, the replaced bytes would never be read from the cache again
+        replaced.forEach(coverBytesCache::evict);
+        if (thumbnail == null || medium == null) {
+            coverRenditionService.submit(bookId, bookCover);
         }
-        var transactionBookHistory = BookTransactionHistory.builder()
-                .user(user)
-                .book(book)
-                .returned(false)
-                .returnedApproved(false)
-                .build();
-        return historyRepository.save(transactionBookHistory).getId();
     }
 
-    public Integer returnedBorrowBooks(Integer bookId, Authentication connectedUser) {
+    private String existingRendition(String bookCover, CoverSize size) {
+        var rendition = CoverRenditionService.renditionPath(bookCover, size);
+        return blobStore.exists(rendition) ? rendition : null;
+    }
+
+    /**
+     * The version is the content hash a book response put in the cover URL. Covers are readable without a token,
+     * so it must match one of the book's covers: ids are sequential, the hashes are only known to readers
+     * who were shown the book.
+     */
+    public BookCover findBookCover(Integer bookId, CoverSize size, String version) {
         var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
-        if (book.isArchived() || !book.isShareable()) {
-            throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
+                .filter(found -> isCoverVersion(found, version))
+                .orElseThrow(() -> new EntityNotFoundException("No cover found for the book with ID:: " + bookId));
+        var coverPath = switch (size) {
+            case THUMBNAIL -> book.getBookCoverThumbnail();
+            case MEDIUM -> book.getBookCoverMedium();
+            case ORIGINAL -> null;
+        };
+        // renditions are created asynchronously, serve the original meanwhile
+        var key = coverPath == null ? book.getBookCover() : coverPath;
+        if (key == null) {
+            throw new EntityNotFoundException("No cover found for the book with ID:: " + bookId);
         }
+        var directUrl = blobStore.directUrl(key);
+        if (directUrl.isPresent()) {
+            return new BookCover(key, directUrl.get(), null, null);
+        }
+        var cover = coverBytesCache.get(key);
+        if (cover == null) {
+            throw new EntityNotFoundException("No cover found for the book with ID:: " + bookId);
+        }
+        return new BookCover(key, null, cover.bytes(), cover.resource());
+    }
 
-        var user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow or return your own book");
+    private static boolean isCoverVersion(Book book, String version) {
+        return version != null && Stream.of(book.getBookCover(), book.getBookCoverThumbnail(), book.getBookCoverMedium())
+                .anyMatch(cover -> version.equals(FileUtils.contentHash(cover)));
+    }
+
+    private static void checkPageRequest(int page, int size) {
+        // a slice of size 0 has no last row to continue from
+        if (page < 0 || size < 1) {
+            throw new OperationNotPermittedException("The page must not be negative and the size must be at least 1");
         }
+    }
 
-        var bookTransactionHistory = historyRepository.findByBookIdAndUserId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
+    /**
+     * Builds a count-free response from a keyset query that fetched one extra row to detect the next slice.
+     */
+    private <T, R> PageResponse<R> toSliceResponse(
+            List<T> rows,
+            int size,
+            Function<T, R> mapper,
+            Function<T, Cursor> cursorOf
+    ) {
+        var hasNext = rows.size() > size;
+        var slice = hasNext ? rows.subList(0, size) : rows;
+        return new PageResponse<>(
+                slice.stream().map(mapper).toList(),
+                0,
+                size,
+                -1,
+                -1,
+                false,
+                !hasNext,
+                hasNext ? cursorOf.apply(slice.get(size - 1)).encode() : null
+        );
+    }
 
-        bookTransactionHistory.setReturned(true);
-        return historyRepository.save(bookTransactionHistory).getId();
+    /**
+     * A history page read from the hot table is complete unless it runs out of rows, or reaches rows opened
+     * before the archive watermark, where archived loans may sort in between.
+     */
+    private boolean reachesArchive(List<BorrowedBookSummary> rows, int expected) {
+        return rows.size() < expected
+                || rows.get(rows.size() - 1).createdDate().isBefore(historyArchiver.archivedBefore());
     }
 
-    public Integer approveReturnBooks(Integer bookId, Authentication connectedUser) {
-        var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
-        if (book.isArchived() || !book.isShareable()) {
-            throw new OperationNotPermittedException("Book cannot be borrowed since archived or not shareable");
-        }
-        var user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow or return your own book");
-        }
-        var bookTransactionHistory = historyRepository.findByBookIdAndOwnerId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("The book is not returned yet. You cannot approve its return"));
-        bookTransactionHistory.setReturnedApproved(true);
-        return historyRepository.save(bookTransactionHistory).getId();
+    private boolean reachesArchive(Page<BorrowedBookSummary> page) {
+        return reachesArchive(page.getContent(), page.getSize());
     }
 
-    public void uploadBookCoverPicture(Integer bookId, Authentication connectedUser, MultipartFile file) {
-        var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No found with ID:: " + bookId));
-        var user = ((User) connectedUser.getPrincipal());
-        var bookCover = fileStorageService.saveFile(file, user.getId());
-        book.setBookCover(bookCover);
-        bookRepository.save(book);
+    private <T> String nextCursor(Page<T> page, Function<T, Cursor> cursorOf) {
+        if (page.isLast() || !page.hasContent()) {
+            return null;
+        }
+        return cursorOf.apply(page.getContent().get(page.getNumberOfElements() - 1)).encode();
     }
 }
@@ -0,0 +1,30 @@
+package com.network.book;
+
+import com.network.common.Cursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-side row of the book listings, selected in one statement together with the owner name.
+ */
+public record BookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String owner,
+        String bookCover,
+        String bookCoverThumbnail,
+        double ratingSum,
+        int ratingCount,
+        boolean archived,
+        boolean shareable,
+        LoanState loanState,
+        LocalDateTime createdDate
+) {
+
+    public Cursor cursor() {
+        return new Cursor(createdDate, id);
+    }
+}
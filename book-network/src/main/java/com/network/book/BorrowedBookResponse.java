@@ -2,6 +2,8 @@ package com.network.book;
 
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @AllArgsConstructor
@@ -17,4 +19,5 @@ public class BorrowedBookResponse {
     private double rate;
     private boolean returned;
     private boolean returnedApprove;
+    private LocalDateTime dueDate;
 }
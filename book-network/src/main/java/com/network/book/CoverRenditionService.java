@@ -0,0 +1,142 @@
+package com.network.book;
+
+import com.network.file.BlobStore;
+import com.network.file.CoverSize;
+import com.network.file.FileUtils;
+import com.network.file.ImageUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+import static com.network.file.CoverSize.MEDIUM;
+import static com.network.file.CoverSize.THUMBNAIL;
+
+/**
+ * Produces the thumbnail and medium renditions of uploaded covers on a bounded worker pool.
+ * When the queue is full the uploading thread renders the cover itself, which slows uploads
+ * down instead of dropping work or growing the backlog without limit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoverRenditionService {
+
+    private final BookRepository bookRepository;
+    private final BlobStore blobStore;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.file.cover.rendition.pool-size:2}")
+    private int poolSize;
+
+    @Value("${application.file.cover.rendition.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Timer renditionTimer;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("cover-rendition-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        // executor.queued, executor.active, executor.completed... tagged name=cover-rendition
+        new ExecutorServiceMetrics(executor, "cover-rendition", Tags.empty()).bindTo(meterRegistry);
+        renditionTimer = Timer.builder("book.cover.rendition")
+                .description("Time to produce all renditions of one cover")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public void submit(Integer bookId, String bookCover) {
+        executor.execute(() -> renditionTimer.record(() -> render(bookId, bookCover)));
+    }
+
+    public static String renditionPath(String bookCover, CoverSize size) {
+        var extension = bookCover.endsWith(".jpg") ? ".jpg" : ".png";
+        var lastDotIndex = bookCover.lastIndexOf(".");
+        var basePath = lastDotIndex == -1 ? bookCover : bookCover.substring(0, lastDotIndex);
+        return basePath + "_" + size.getWidth() + extension;
+    }
+
+    private void render(Integer bookId, String bookCover) {
+        var thumbnail = renditionPath(bookCover, THUMBNAIL);
+        var medium = renditionPath(bookCover, MEDIUM);
+        var missing = new HashMap<Integer, Path>();
+        var missingKeys = new HashMap<Integer, String>();
+        try {
+            // renditions of content-addressed covers are shared, an identical upload may have produced them already
+            if (!blobStore.exists(thumbnail)) {
+                missingKeys.put(THUMBNAIL.getWidth(), thumbnail);
+            }
+            if (!blobStore.exists(medium)) {
+                missingKeys.put(MEDIUM.getWidth(), medium);
+            }
+            if (!missingKeys.isEmpty()) {
+                var suffix = thumbnail.substring(thumbnail.lastIndexOf('.'));
+                for (var width : missingKeys.keySet()) {
+                    missing.put(width, Files.createTempFile("rendition-", suffix));
+                }
+                try (var source = blobStore.open(bookCover)) {
+                    ImageUtils.writeScaledCopies(source, missing);
+                }
+                for (var rendition : missing.entrySet()) {
+                    var key = missingKeys.get(rendition.getKey());
+                    blobStore.put(key, rendition.getValue(), FileUtils.contentType(key).toString());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> bookRepository.findByIdForUpdate(bookId)
+                    // only when the book still has the cover the renditions were made from
+                    .filter(book -> bookCover.equals(book.getBookCover()))
+                    .ifPresent(book -> {
+                        book.setBookCoverThumbnail(thumbnail);
+                        book.setBookCoverMedium(medium);
+                    }));
+            cacheManager.getCache(BOOK_RESPONSES).evict(bookId);
+        } catch (Exception e) {
+            log.error("Renditions of the cover {} were not created", bookCover, e);
+        } finally {
+            for (var tempPath : missing.values()) {
+                deleteQuietly(tempPath);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete the temporary file {}", path);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.network.book;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+public enum ExportFormat {
+
+    CSV("csv", MediaType.valueOf("text/csv")),
+    NDJSON("ndjson", MediaType.valueOf("application/x-ndjson"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+}
@@ -0,0 +1,15 @@
+package com.network.book;
+
+public enum LoanState {
+
+    BORROWED,
+    RETURNED,
+    APPROVED;
+
+    /**
+     * A loan stays open, and the book unavailable, until the owner approves its return.
+     */
+    public static boolean isOpen(LoanState state) {
+        return state == BORROWED || state == RETURNED;
+    }
+}
@@ -0,0 +1,75 @@
+package com.network.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fixed-size Bloom filter over strings. {@link #mightContain(String)} never returns false for a key that was
+ * put; it returns true for an absent key at about the false positive rate chosen at construction, as long as
+ * no more than the expected number of keys were put. Safe for concurrent puts and reads.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        var insertions = Math.max(1, expectedInsertions);
+        var bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+        this.expectedInsertions = insertions;
+    }
+
+    public void put(String key) {
+        var hash1 = hash(key);
+        var hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        var hash1 = hash(key);
+        var hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String key) {
+        var hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // splitmix64 finalizer, forced odd so the probe sequence never collapses onto one bit
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return (hash ^ (hash >>> 31)) | 1;
+    }
+}
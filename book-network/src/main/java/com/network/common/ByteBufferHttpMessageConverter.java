@@ -0,0 +1,64 @@
+package com.network.common;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes ByteBuffer response bodies, including direct ones, without copying them to a byte[] first.
+ * The servlet API has no ByteBuffer write, so direct buffers go through a transfer chunk reused by each
+ * request thread and a response allocates nothing on the heap.
+ */
+public class ByteBufferHttpMessageConverter extends AbstractHttpMessageConverter<ByteBuffer> {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private static final ThreadLocal<byte[]> TRANSFER_CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    public ByteBufferHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ByteBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ByteBuffer readInternal(Class<? extends ByteBuffer> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ByteBuffer request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ByteBuffer buffer, @Nullable MediaType contentType) {
+        return (long) buffer.remaining();
+    }
+
+    @Override
+    protected void writeInternal(ByteBuffer buffer, HttpOutputMessage outputMessage) throws IOException {
+        var body = outputMessage.getBody();
+        // leaves the caller's buffer untouched
+        var source = buffer.duplicate();
+        if (source.hasArray()) {
+            body.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            return;
+        }
+        var chunk = TRANSFER_CHUNK.get();
+        while (source.hasRemaining()) {
+            var length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            body.write(chunk, 0, length);
+        }
+    }
+}
@@ -14,8 +14,23 @@ public class PageResponse<T> {
     private List<T> content;
     private int number;
     private int size;
+    // -1 in cursor mode, where the count query is skipped
     private long totalElements;
     private int totalPages;
     private boolean first;
     private boolean last;
+    // opaque position of the last element, to be sent back as `cursor` to fetch the next slice
+    private String nextCursor;
+
+    public PageResponse(
+            List<T> content,
+            int number,
+            int size,
+            long totalElements,
+            int totalPages,
+            boolean first,
+            boolean last
+    ) {
+        this(content, number, size, totalElements, totalPages, first, last, null);
+    }
 }
@@ -0,0 +1,39 @@
+package com.network.common;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared by hash, so callers can serialize work per key without a lock per key.
+ * Only coordinates threads of this node; correctness across nodes must come from the database.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int stripes) {
+        // a power of two lets the stripe be picked with a mask
+        var size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T callLocked(Object key, Supplier<T> action) {
+        var lock = stripeFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Object key) {
+        var hash = key.hashCode();
+        // spread the high bits, sequential ids would otherwise only use the low stripes in order
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -1,6 +1,6 @@
 package com.network.config;
 
-import com.network.user.User;
+import com.network.user.UserPrincipal;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -17,7 +17,7 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
                 authentication instanceof AnonymousAuthenticationToken) {
             return Optional.empty();
         }
-        User userPrincipal = (User) authentication.getPrincipal();
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         return Optional.ofNullable(userPrincipal.getId());
     }
 }
@@ -0,0 +1,100 @@
+package com.network.config;
+
+import com.network.file.BlobStore;
+import com.network.file.LocalFileSystemBlobStore;
+import com.network.file.S3BlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Selects where uploaded files are kept with application.file.storage.type: local (the default) or s3.
+ */
+@Configuration
+public class BlobStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.file.storage.type", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${application.file.upload.photos-output-path}") String root) {
+        return new LocalFileSystemBlobStore(Path.of(root));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "application.file.storage.type", havingValue = "s3")
+    public S3BlobStore s3BlobStore(
+            MeterRegistry meterRegistry,
+            @Value("${application.file.storage.s3.bucket}") String bucket,
+            @Value("${application.file.storage.s3.region:us-east-1}") String region,
+            @Value("${application.file.storage.s3.endpoint:}") String endpoint,
+            @Value("${application.file.storage.s3.path-style-access:false}") boolean pathStyleAccess,
+            @Value("${application.file.storage.s3.access-key:}") String accessKey,
+            @Value("${application.file.storage.s3.secret-key:}") String secretKey,
+            @Value("${application.file.storage.s3.cache-control:max-age=31536000, immutable}") String cacheControl,
+            @Value("${application.file.storage.s3.multipart-threshold:8MB}") DataSize multipartThreshold,
+            @Value("${application.file.storage.s3.part-size:5MB}") DataSize partSize,
+            @Value("${application.file.storage.s3.upload-concurrency:4}") int uploadConcurrency,
+            @Value("${application.file.storage.s3.redirect:true}") boolean redirect,
+            @Value("${application.file.storage.s3.presign-ttl:PT1H}") Duration presignTtl
+    ) {
+        var credentials = credentials(accessKey, secretKey);
+        var serviceConfiguration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build();
+        var client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        var presigner = redirect
+                ? S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration)
+                : null;
+        if (StringUtils.isNotBlank(endpoint)) {
+            client.endpointOverride(URI.create(endpoint));
+            if (presigner != null) {
+                presigner.endpointOverride(URI.create(endpoint));
+            }
+        }
+        var partExecutor = Executors.newFixedThreadPool(uploadConcurrency, new CustomizableThreadFactory("blob-upload-"));
+        new ExecutorServiceMetrics(partExecutor, "blob-upload", Tags.empty()).bindTo(meterRegistry);
+        return new S3BlobStore(
+                client.build(),
+                presigner == null ? null : presigner.build(),
+                bucket,
+                cacheControl,
+                multipartThreshold.toBytes(),
+                partSize.toBytes(),
+                presignTtl,
+                partExecutor
+        );
+    }
+
+    private AwsCredentialsProvider credentials(String accessKey, String secretKey) {
+        if (StringUtils.isBlank(accessKey)) {
+            // environment, profile or instance role
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+}
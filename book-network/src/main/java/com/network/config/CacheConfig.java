@@ -0,0 +1,55 @@
+package com.network.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+@Configuration
+// wraps the transaction interceptor, so @CacheEvict runs after the commit and a concurrent
+// read cannot put back the state that is being replaced
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    /**
+     * Spring cache of BookResponse by book id.
+     */
+    public static final String BOOK_RESPONSES = "bookResponses";
+
+    /**
+     * Hibernate second-level cache region of the Book entity.
+     */
+    public static final String BOOKS = "books";
+
+    @Value("${application.cache.books.maximum-size:10000}")
+    private long booksMaximumSize;
+
+    @Value("${application.cache.books.time-to-live:PT10M}")
+    private Duration booksTimeToLive;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(MeterRegistry meterRegistry) {
+        var cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        if (cacheManager.getCache(BOOKS) == null) {
+            var configuration = new CaffeineConfiguration<Object, Object>();
+            configuration.setMaximumSize(OptionalLong.of(booksMaximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(booksTimeToLive.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(BOOKS, configuration);
+        }
+        // cache.gets (hit / miss), cache.puts, cache.removals, cache.evictions tagged cache=books
+        JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(BOOKS));
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+}
@@ -0,0 +1,18 @@
+package com.network.config;
+
+import com.network.common.ByteBufferHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // ahead of Jackson, which would serialize a ByteBuffer as a JSON object
+        converters.add(0, new ByteBufferHttpMessageConverter());
+    }
+}
@@ -0,0 +1,40 @@
+package com.network.dashboard;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Lending counters of one user, kept up to date by {@link UserDashboardService} in the transaction
+ * of every book and loan change, and rebuilt from the book table by {@link UserDashboardReconciler}.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_dashboard")
+public class UserDashboard {
+
+    @Id
+    private Integer userId;
+    @ColumnDefault("0")
+    private int ownedBooks;
+    @ColumnDefault("0")
+    private int shareableBooks;
+    @ColumnDefault("0")
+    private int archivedBooks;
+    @ColumnDefault("0")
+    private int lentOutBooks;
+    @ColumnDefault("0")
+    private int borrowedBooks;
+    @ColumnDefault("0")
+    private int awaitingApprovalBooks;
+}
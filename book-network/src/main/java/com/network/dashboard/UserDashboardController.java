@@ -0,0 +1,23 @@
+package com.network.dashboard;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/dashboard")
+@RequiredArgsConstructor
+@Tag(name = "Dashboard")
+public class UserDashboardController {
+
+    private final UserDashboardService service;
+
+    @GetMapping
+    public ResponseEntity<UserDashboardResponse> findDashboard(Authentication connectedUser) {
+        return ResponseEntity.ok(service.findDashboard(connectedUser));
+    }
+}
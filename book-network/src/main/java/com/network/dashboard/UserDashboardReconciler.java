@@ -0,0 +1,54 @@
+package com.network.dashboard;
+
+import com.network.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Recounts the dashboard of every user from the book table, one batch of users per transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserDashboardReconciler {
+
+    private final UserRepository userRepository;
+    private final UserDashboardRepository dashboardRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.dashboard.reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${application.dashboard.reconcile.initial-delay:PT1M}",
+            fixedDelayString = "${application.dashboard.reconcile.interval:PT6H}"
+    )
+    public void reconcile() {
+        var lastId = 0;
+        var reconciled = 0;
+        List<Integer> userIds;
+        do {
+            userIds = userRepository.findIdsAfter(lastId, PageRequest.ofSize(batchSize));
+            if (!userIds.isEmpty()) {
+                reconcileBatch(userIds);
+                lastId = userIds.get(userIds.size() - 1);
+                reconciled += userIds.size();
+            }
+        } while (userIds.size() == batchSize);
+        log.info("Dashboard counters reconciled for {} users", reconciled);
+    }
+
+    private void reconcileBatch(List<Integer> userIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            dashboardRepository.lockByUserIds(userIds);
+            dashboardRepository.recount(userIds);
+        });
+    }
+}
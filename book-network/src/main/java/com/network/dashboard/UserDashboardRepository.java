@@ -0,0 +1,84 @@
+package com.network.dashboard;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserDashboardRepository extends JpaRepository<UserDashboard, Integer> {
+
+    // scoped to its table, so it leaves the cached books in place
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_dashboard"))
+    @Modifying
+    @Query(value = """
+            UPDATE user_dashboard
+            SET owned_books = owned_books + :ownedBooks,
+                shareable_books = shareable_books + :shareableBooks,
+                archived_books = archived_books + :archivedBooks,
+                lent_out_books = lent_out_books + :lentOutBooks,
+                borrowed_books = borrowed_books + :borrowedBooks,
+                awaiting_approval_books = awaiting_approval_books + :awaitingApprovalBooks
+            WHERE user_id = :userId
+            """, nativeQuery = true)
+    int addCounts(
+            @Param("userId") Integer userId,
+            @Param("ownedBooks") int ownedBooks,
+            @Param("shareableBooks") int shareableBooks,
+            @Param("archivedBooks") int archivedBooks,
+            @Param("lentOutBooks") int lentOutBooks,
+            @Param("borrowedBooks") int borrowedBooks,
+            @Param("awaitingApprovalBooks") int awaitingApprovalBooks
+    );
+
+    /**
+     * Locks the existing counter rows, so increments committed while they are recounted cannot be overwritten.
+     */
+    @Query(value = """
+            SELECT user_id
+            FROM user_dashboard
+            WHERE user_id IN (:userIds)
+            ORDER BY user_id
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Integer> lockByUserIds(@Param("userIds") List<Integer> userIds);
+
+    // it reads the books but only declares its own table, so the pending book changes are flushed explicitly
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_dashboard"))
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO user_dashboard (
+                user_id, owned_books, shareable_books, archived_books, lent_out_books, borrowed_books, awaiting_approval_books
+            )
+            SELECT u.id, owned.total, owned.shareable, owned.archived, owned.lent_out, borrowed.total, owned.awaiting_approval
+            FROM _user_ u
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) AS total,
+                    COUNT(*) FILTER (WHERE book.shareable) AS shareable,
+                    COUNT(*) FILTER (WHERE book.archived) AS archived,
+                    COUNT(*) FILTER (WHERE book.loan_state = 'BORROWED') AS lent_out,
+                    COUNT(*) FILTER (WHERE book.loan_state = 'RETURNED') AS awaiting_approval
+                FROM book
+                WHERE book.owner_id = u.id
+            ) owned
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) AS total
+                FROM book
+                WHERE book.loan_borrower_id = u.id
+                AND book.loan_state = 'BORROWED'
+            ) borrowed
+            WHERE u.id IN (:userIds)
+            ON CONFLICT (user_id) DO UPDATE
+            SET owned_books = EXCLUDED.owned_books,
+                shareable_books = EXCLUDED.shareable_books,
+                archived_books = EXCLUDED.archived_books,
+                lent_out_books = EXCLUDED.lent_out_books,
+                borrowed_books = EXCLUDED.borrowed_books,
+                awaiting_approval_books = EXCLUDED.awaiting_approval_books
+            """, nativeQuery = true)
+    int recount(@Param("userIds") List<Integer> userIds);
+}
@@ -0,0 +1,18 @@
+package com.network.dashboard;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserDashboardResponse {
+
+    private int ownedBooks;
+    private int shareableBooks;
+    private int archivedBooks;
+    private int lentOutBooks;
+    private int borrowedBooks;
+    private int awaitingApprovalBooks;
+}
@@ -0,0 +1,98 @@
+package com.network.dashboard;
+
+import com.network.user.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Counter updates join the transaction of the change they count, so the dashboard commits or rolls back with it.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDashboardService {
+
+    private final UserDashboardRepository dashboardRepository;
+
+    @Transactional
+    public UserDashboardResponse findDashboard(Authentication connectedUser) {
+        var user = ((UserPrincipal) connectedUser.getPrincipal());
+        var dashboard = dashboardRepository.findById(user.getId())
+                .orElseGet(() -> {
+                    dashboardRepository.recount(List.of(user.getId()));
+                    return dashboardRepository.findById(user.getId()).orElseThrow();
+                });
+        return UserDashboardResponse.builder()
+                .ownedBooks(dashboard.getOwnedBooks())
+                .shareableBooks(dashboard.getShareableBooks())
+                .archivedBooks(dashboard.getArchivedBooks())
+                .lentOutBooks(dashboard.getLentOutBooks())
+                .borrowedBooks(dashboard.getBorrowedBooks())
+                .awaitingApprovalBooks(dashboard.getAwaitingApprovalBooks())
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void booksAdded(Integer ownerId, int books, int shareableBooks, int archivedBooks) {
+        add(ownerId, books, shareableBooks, archivedBooks, 0, 0, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void shareableChanged(Integer ownerId, boolean shareable) {
+        add(ownerId, 0, shareable ? 1 : -1, 0, 0, 0, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void archivedChanged(Integer ownerId, boolean archived) {
+        add(ownerId, 0, 0, archived ? 1 : -1, 0, 0, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookBorrowed(Integer ownerId, Integer borrowerId) {
+        // lower user id first, two loans between the same users in opposite directions never lock in reverse order
+        if (ownerId < borrowerId) {
+            add(ownerId, 0, 0, 0, 1, 0, 0);
+            add(borrowerId, 0, 0, 0, 0, 1, 0);
+        } else {
+            add(borrowerId, 0, 0, 0, 0, 1, 0);
+            add(ownerId, 0, 0, 0, 1, 0, 0);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookReturned(Integer ownerId, Integer borrowerId) {
+        if (ownerId < borrowerId) {
+            add(ownerId, 0, 0, 0, -1, 0, 1);
+            add(borrowerId, 0, 0, 0, 0, -1, 0);
+        } else {
+            add(borrowerId, 0, 0, 0, 0, -1, 0);
+            add(ownerId, 0, 0, 0, -1, 0, 1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void returnApproved(Integer ownerId) {
+        add(ownerId, 0, 0, 0, 0, 0, -1);
+    }
+
+    private void add(
+            Integer userId,
+            int ownedBooks,
+            int shareableBooks,
+            int archivedBooks,
+            int lentOutBooks,
+            int borrowedBooks,
+            int awaitingApprovalBooks
+    ) {
+        var updated = dashboardRepository.addCounts(
+                userId, ownedBooks, shareableBooks, archivedBooks, lentOutBooks, borrowedBooks, awaitingApprovalBooks);
+        if (updated == 0) {
+            // first change for this user, the count sees this transaction's own writes
+            dashboardRepository.recount(List.of(userId));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.network.email;
+
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A template rendered once with markers in place of its per-recipient values, split into static text and
+ * value slots. A template with rows keeps the rendering of its first row in {@code head} and the text each
+ * further row adds, separator included, in {@code nextRow}. Rendering a mail only escapes and concatenates.
+ */
+class CompiledEmailTemplate {
+
+    // private-use characters, passed through unchanged by Thymeleaf's HTML escaping
+    static final char MARK = '\uE000';
+    static final String ROW_FIELD = "#";
+
+    private final EmailTemplateName template;
+    private final List<String> withoutRows;
+    private final List<String> head;
+    private final List<String> nextRow;
+    private final List<String> tail;
+
+    private CompiledEmailTemplate(
+            EmailTemplateName template,
+            List<String> withoutRows,
+            List<String> head,
+            List<String> nextRow,
+            List<String> tail
+    ) {
+        this.template = template;
+        this.withoutRows = withoutRows;
+        this.head = head;
+        this.nextRow = nextRow;
+        this.tail = tail;
+    }
+
+    static String marker(String name) {
+        return MARK + name + MARK;
+    }
+
+    /**
+     * @param withoutRows  the template rendered with markers and an empty rows variable
+     * @param withOneRow   the same with one row of row field markers, ignored if the template has no rows
+     * @param withTwoRows  the same with two such rows
+     * @return null if the renderings cannot be split into static text and slots
+     */
+    static CompiledEmailTemplate of(EmailTemplateName template, String withoutRows, String withOneRow, String withTwoRows) {
+        var empty = split(withoutRows);
+        if (template.getRowsVariable() == null) {
+            return empty == null || hasRowField(empty) ? null : new CompiledEmailTemplate(template, empty, null, null, null);
+        }
+        // the second row is inserted into the one-row rendering, from where the two first differ
+        var rowLength = withTwoRows.length() - withOneRow.length();
+        var start = 0;
+        while (start < withOneRow.length() && withOneRow.charAt(start) == withTwoRows.charAt(start)) {
+            start++;
+        }
+        if (rowLength <= 0 || !withTwoRows.substring(start + rowLength).equals(withOneRow.substring(start))) {
+            return null;
+        }
+        var head = split(withOneRow.substring(0, start));
+        var nextRow = split(withTwoRows.substring(start, start + rowLength));
+        var tail = split(withOneRow.substring(start));
+        // only the rows may refer to row fields
+        if (empty == null || head == null || nextRow == null || tail == null || hasRowField(empty) || hasRowField(tail)) {
+            return null;
+        }
+        return new CompiledEmailTemplate(template, empty, head, nextRow, tail);
+    }
+
+    /**
+     * Whether every value is present and of a kind the slots can take; anything else goes through the engine.
+     */
+    boolean accepts(Map<String, Object> variables) {
+        for (var name : variables.keySet()) {
+            if (!template.getVariables().contains(name) && !name.equals(template.getRowsVariable())) {
+                return false;
+            }
+        }
+        for (var name : template.getVariables()) {
+            if (variables.get(name) == null) {
+                return false;
+            }
+        }
+        if (template.getRowsVariable() == null) {
+            return true;
+        }
+        if (!(variables.get(template.getRowsVariable()) instanceof List<?> rows)) {
+            return false;
+        }
+        for (var element : rows) {
+            if (!(element instanceof Map<?, ?> fields) || !fields.keySet().containsAll(template.getRowFields())
+                    || fields.values().stream().anyMatch(Objects::isNull)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String render(Map<String, Object> variables) {
+        var rows = template.getRowsVariable() == null ? List.of() : (List<?>) variables.get(template.getRowsVariable());
+        var html = new StringBuilder(4096);
+        if (rows.isEmpty()) {
+            append(html, withoutRows, variables, null);
+            return html.toString();
+        }
+        append(html, head, variables, (Map<?, ?>) rows.get(0));
+        for (int i = 1; i < rows.size(); i++) {
+            append(html, nextRow, variables, (Map<?, ?>) rows.get(i));
+        }
+        append(html, tail, variables, null);
+        return html.toString();
+    }
+
+    // static text at even indexes, slot names at odd ones
+    private static void append(StringBuilder html, List<String> pieces, Map<String, Object> variables, Map<?, ?> rowFields) {
+        for (int i = 0; i < pieces.size(); i++) {
+            var piece = pieces.get(i);
+            if (i % 2 == 0) {
+                html.append(piece);
+            } else {
+                var value = piece.startsWith(ROW_FIELD) ? rowFields.get(piece.substring(1)) : variables.get(piece);
+                html.append(HtmlEscape.escapeHtml4Xml(String.valueOf(value)));
+            }
+        }
+    }
+
+    private static List<String> split(String rendered) {
+        var pieces = new ArrayList<String>();
+        var from = 0;
+        int mark;
+        while ((mark = rendered.indexOf(MARK, from)) >= 0) {
+            var end = rendered.indexOf(MARK, mark + 1);
+            if (end < 0) {
+                return null;
+            }
+            pieces.add(rendered.substring(from, mark));
+            pieces.add(rendered.substring(mark + 1, end));
+            from = end + 1;
+        }
+        pieces.add(rendered.substring(from));
+        return pieces;
+    }
+
+    private static boolean hasRowField(List<String> pieces) {
+        for (int i = 1; i < pieces.size(); i += 2) {
+            if (pieces.get(i).startsWith(ROW_FIELD)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+package com.network.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
+
+/**
+ * Drains the outbox. Each poll claims batches of due mails and splits them over a fixed number of sender
+ * threads; every thread hands its share to SMTP over one connection. A mail that fails is retried with
+ * exponential backoff and full jitter, and given up after max-attempts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxWorker {
+
+    private static final String FROM = "contact@fery.com";
+
+    private final OutboxEmailRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    // nodes that should not deliver mail, and the test suite, turn the poll off
+    @Value("${application.mailing.outbox.enabled:true}")
+    private boolean enabled;
+    @Value("${application.mailing.outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${application.mailing.outbox.sender-threads:2}")
+    private int senderThreads;
+    @Value("${application.mailing.outbox.lease:PT5M}")
+    private Duration lease;
+    @Value("${application.mailing.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${application.mailing.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+    @Value("${application.mailing.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    private ExecutorService senders;
+    private final AtomicLong backlog = new AtomicLong();
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void start() {
+        senders = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("email-outbox-"));
+        new ExecutorServiceMetrics(senders, "email-outbox", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("email.outbox.backlog", backlog, AtomicLong::get)
+                .description("Mails waiting in the outbox, as of the last poll")
+                .register(meterRegistry);
+        sentCounter = outcomeCounter("sent");
+        retriedCounter = outcomeCounter("retried");
+        failedCounter = outcomeCounter("failed");
+        batchTimer = Timer.builder("email.outbox.batch")
+                .description("Time to hand one batch of mails to SMTP")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        senders.shutdown();
+    }
+
+    @Scheduled(
+            initialDelayString = "${application.mailing.outbox.poll-interval:PT5S}",
+            fixedDelayString = "${application.mailing.outbox.poll-interval:PT5S}"
+    )
+    public void poll() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    public void drain() {
+        int claimed;
+        do {
+            var now = LocalDateTime.now();
+            var batch = outboxRepository.claimBatch(now, now.plus(lease), batchSize);
+            if (!batch.isEmpty()) {
+                batchTimer.record(() -> sendBatch(batch));
+            }
+            claimed = batch.size();
+        } while (claimed == batchSize);
+        backlog.set(outboxRepository.countByStatus(OutboxEmailStatus.PENDING));
+    }
+
+    private void sendBatch(List<OutboxEmail> batch) {
+        var shares = new ArrayList<Callable<Void>>();
+        var shareSize = (batch.size() + senderThreads - 1) / senderThreads;
+        for (int from = 0; from < batch.size(); from += shareSize) {
+            var share = batch.subList(from, Math.min(batch.size(), from + shareSize));
+            shares.add(() -> {
+                send(share);
+                return null;
+            });
+        }
+        try {
+            for (var result : senders.invokeAll(shares)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // the claimed rows keep their lease and are picked up again once it has passed
+            log.error("An outbox batch was not sent", e.getCause());
+        }
+    }
+
+    private void send(List<OutboxEmail> emails) {
+        var messages = new IdentityHashMap<MimeMessage, OutboxEmail>();
+        var failures = new HashMap<OutboxEmail, Exception>();
+        for (var email : emails) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            try {
+                // one SMTP connection for the whole share
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(messages.get(message), cause));
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(email -> failures.put(email, e));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        }
+        var sent = emails.stream()
+                .filter(email -> !failures.containsKey(email))
+                .map(OutboxEmail::getId)
+                .toList();
+        if (!sent.isEmpty()) {
+            outboxRepository.markSent(sent, LocalDateTime.now());
+            sentCounter.increment(sent.size());
+        }
+        failures.forEach(this::recordFailure);
+    }
+
+    private void recordFailure(OutboxEmail email, Exception cause) {
+        var attempts = email.getAttempts() + 1;
+        var error = String.valueOf(cause.getMessage());
+        error = error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (attempts >= maxAttempts) {
+            outboxRepository.markFailed(email.getId(), OutboxEmailStatus.FAILED, null, error);
+            failedCounter.increment();
+            log.error("Mail {} to {} given up after {} attempts", email.getId(), email.getRecipient(), attempts, cause);
+            return;
+        }
+        outboxRepository.markFailed(email.getId(), OutboxEmailStatus.PENDING, LocalDateTime.now().plus(backoff(attempts)), error);
+        retriedCounter.increment();
+        log.warn("Mail {} to {} failed on attempt {}, it will be retried", email.getId(), email.getRecipient(), attempts);
+    }
+
+    // full jitter: uniform in [0, min(max, initial * 2^(attempts - 1))], so failed mails do not retry in lockstep
+    private Duration backoff(int attempts) {
+        var ceiling = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        ceiling = Math.min(ceiling <= 0 ? Long.MAX_VALUE : ceiling, maxBackoff.toMillis());
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+                mimeMessage,
+                MULTIPART_MODE_MIXED,
+                UTF_8.name()
+        );
+        helper.setFrom(FROM);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return mimeMessage;
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("email.outbox.delivered")
+                .description("Delivery attempts of outbox mails by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
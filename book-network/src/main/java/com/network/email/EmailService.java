@@ -1,29 +1,28 @@
 package com.network.email;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.network.history.OverdueLoan;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
-
+/**
+ * Renders mails into the outbox. Nothing here talks to SMTP, {@link EmailOutboxWorker} delivers them.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
+    private static final DateTimeFormatter DUE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final EmailTemplateRenderer templateRenderer;
+    private final OutboxEmailRepository outboxRepository;
 
-    @Async
     public void sendEmail(
             String to,
             String username,
@@ -31,34 +30,41 @@ public class EmailService {
             String confirmationUrl,
             String activationCode,
             String subject
-    ) throws MessagingException {
-        String templateName;
-        if (emailTemplate == null) {
-            templateName = "confirm-email";
-        } else {
-            templateName = emailTemplate.name();
-        }
-
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(
-                mimeMessage,
-                MULTIPART_MODE_MIXED,
-                UTF_8.name()
-        );
+    ) {
         Map<String, Object> properties = new HashMap<>();
         properties.put("username", username);
         properties.put("confirmationUrl", confirmationUrl);
         properties.put("activation_code", activationCode);
 
-        Context context = new Context();
-        context.setVariables(properties);
+        enqueue(to, subject, emailTemplate == null ? EmailTemplateName.ACTIVATE_ACCOUNT : emailTemplate, properties);
+    }
+
+    public void sendOverdueLoansDigest(String to, String username, List<OverdueLoan> loans) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("username", username);
+        // rows of plain strings, dates formatted here, so the precompiled template only substitutes them;
+        // a missing title or author renders empty, as the template engine would render it
+        properties.put("loans", loans.stream()
+                .map(loan -> Map.of(
+                        "title", Objects.requireNonNullElse(loan.title(), ""),
+                        "authorName", Objects.requireNonNullElse(loan.authorName(), ""),
+                        "dueDate", DUE_DATE.format(loan.dueDate())
+                ))
+                .toList());
 
-        helper.setFrom("contact@fery.com");
-        helper.setTo(to);
-        helper.setSubject(subject);
+        enqueue(to, "Overdue books", EmailTemplateName.OVERDUE_LOANS, properties);
+    }
 
-        String template = templateEngine.process(templateName, context);
-        helper.setText(template, true);
-        mailSender.send(mimeMessage);
+    // saved in the transaction the callers open around it, so the mail is only sent if their changes commit
+    private void enqueue(String to, String subject, EmailTemplateName template, Map<String, Object> properties) {
+        var now = LocalDateTime.now();
+        outboxRepository.save(OutboxEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(templateRenderer.render(template, properties))
+                .status(OutboxEmailStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
     }
 }
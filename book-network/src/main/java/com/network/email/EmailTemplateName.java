@@ -2,14 +2,29 @@ package com.network.email;
 
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 public enum EmailTemplateName {
 
-    ACTIVATE_ACCOUNT("activate_account");
+    ACTIVATE_ACCOUNT("activate_account", List.of("username", "confirmationUrl", "activation_code")),
+    OVERDUE_LOANS("overdue_loans", List.of("username"), "loans", List.of("title", "authorName", "dueDate"));
 
     private final String name;
+    // the per-recipient values of the template, everything else is rendered once
+    private final List<String> variables;
+    // optional repeated section, one row per element of this list variable, each element a map of rowFields
+    private final String rowsVariable;
+    private final List<String> rowFields;
+
+    EmailTemplateName(String name, List<String> variables) {
+        this(name, variables, null, List.of());
+    }
 
-    EmailTemplateName(String name) {
+    EmailTemplateName(String name, List<String> variables, String rowsVariable, List<String> rowFields) {
         this.name = name;
+        this.variables = variables;
+        this.rowsVariable = rowsVariable;
+        this.rowFields = rowFields;
     }
 }
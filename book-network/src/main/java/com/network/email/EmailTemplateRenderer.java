@@ -0,0 +1,115 @@
+package com.network.email;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders mails from templates compiled at startup, see {@link CompiledEmailTemplate}. Startup fails if a
+ * template of {@link EmailTemplateName} does not exist. A template the compiler cannot split, or a call
+ * with values it cannot substitute, is rendered by the Thymeleaf engine as before.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String SAMPLE = "<a href=\"x\">Tom & 'Jerry' é</a> ";
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final Map<EmailTemplateName, CompiledEmailTemplate> compiledTemplates = new EnumMap<>(EmailTemplateName.class);
+
+    @PostConstruct
+    void init() {
+        var missing = new ArrayList<String>();
+        for (var template : EmailTemplateName.values()) {
+            try {
+                var compiled = compile(template);
+                if (compiled == null) {
+                    log.warn("Email template {} cannot be precompiled, it is rendered by the template engine", template.getName());
+                } else {
+                    compiledTemplates.put(template, compiled);
+                }
+            } catch (TemplateInputException e) {
+                missing.add(template.getName());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Email templates not found: " + missing);
+        }
+    }
+
+    public String render(EmailTemplateName template, Map<String, Object> variables) {
+        var compiled = compiledTemplates.get(template);
+        if (compiled != null && compiled.accepts(variables)) {
+            return compiled.render(variables);
+        }
+        return process(template, variables);
+    }
+
+    CompiledEmailTemplate compiled(EmailTemplateName template) {
+        return compiledTemplates.get(template);
+    }
+
+    private CompiledEmailTemplate compile(EmailTemplateName template) {
+        var markers = new HashMap<String, Object>();
+        template.getVariables().forEach(name -> markers.put(name, CompiledEmailTemplate.marker(name)));
+        String withOneRow = null;
+        String withTwoRows = null;
+        if (template.getRowsVariable() != null) {
+            var rowMarkers = new HashMap<String, Object>();
+            template.getRowFields().forEach(field -> rowMarkers.put(field, CompiledEmailTemplate.marker(CompiledEmailTemplate.ROW_FIELD + field)));
+            markers.put(template.getRowsVariable(), List.of(rowMarkers));
+            withOneRow = process(template, markers);
+            markers.put(template.getRowsVariable(), List.of(rowMarkers, rowMarkers));
+            withTwoRows = process(template, markers);
+            markers.put(template.getRowsVariable(), List.of());
+        }
+        var compiled = CompiledEmailTemplate.of(template, process(template, markers), withOneRow, withTwoRows);
+        // the split is only trusted if it renders exactly what the engine does, escaping included
+        if (compiled == null) {
+            return null;
+        }
+        for (var rowCount : List.of(0, 1, 3)) {
+            var sample = sample(template, rowCount);
+            if (!compiled.accepts(sample) || !compiled.render(sample).equals(process(template, sample))) {
+                return null;
+            }
+        }
+        return compiled;
+    }
+
+    private static Map<String, Object> sample(EmailTemplateName template, int rowCount) {
+        var sample = new HashMap<String, Object>();
+        template.getVariables().forEach(name -> sample.put(name, SAMPLE + name));
+        if (template.getRowsVariable() != null) {
+            var rows = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < rowCount; i++) {
+                var row = new HashMap<String, Object>();
+                for (var field : template.getRowFields()) {
+                    row.put(field, SAMPLE + field + i);
+                }
+                rows.add(row);
+            }
+            sample.put(template.getRowsVariable(), rows);
+        }
+        return sample;
+    }
+
+    private String process(EmailTemplateName template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template.getName(), context);
+    }
+}
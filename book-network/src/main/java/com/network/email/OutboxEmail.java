@@ -0,0 +1,51 @@
+package com.network.email;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rendered mail waiting to be handed to SMTP. Rows are written in the transaction of whatever caused the
+ * mail, so a mail exists exactly when its cause was committed.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt_at", columnList = "status, nextAttemptAt")
+})
+public class OutboxEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String recipient;
+    private String subject;
+    @Column(columnDefinition = "text")
+    private String body;
+    @Enumerated(EnumType.STRING)
+    private OutboxEmailStatus status;
+    private int attempts;
+    // also the lease of a claimed row, see OutboxEmailRepository.claimBatch
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+    @Column(length = 1000)
+    private String lastError;
+}
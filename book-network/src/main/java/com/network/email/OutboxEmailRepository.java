@@ -0,0 +1,70 @@
+package com.network.email;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Claims a batch of due mails by pushing their next attempt to the end of a lease. Other workers, on this
+     * or another node, skip the claimed rows; if this one dies before recording the outcome they are due again
+     * once the lease has passed.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE email_outbox
+            SET next_attempt_at = :leaseUntil
+            WHERE id IN (
+                SELECT id
+                FROM email_outbox
+                WHERE status = 'PENDING'
+                AND next_attempt_at <= :now
+                ORDER BY next_attempt_at, id
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """, nativeQuery = true)
+    List<OutboxEmail> claimBatch(
+            @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("batchSize") int batchSize
+    );
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE OutboxEmail email
+            SET email.status = com.network.email.OutboxEmailStatus.SENT,
+                email.attempts = email.attempts + 1,
+                email.sentAt = :sentAt,
+                email.lastError = null
+            WHERE email.id IN :ids
+            """)
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE OutboxEmail email
+            SET email.status = :status,
+                email.attempts = email.attempts + 1,
+                email.nextAttemptAt = :nextAttemptAt,
+                email.lastError = :error
+            WHERE email.id = :id
+            """)
+    int markFailed(
+            @Param("id") Long id,
+            @Param("status") OutboxEmailStatus status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error
+    );
+
+    long countByStatus(OutboxEmailStatus status);
+}
@@ -0,0 +1,8 @@
+package com.network.email;
+
+public enum OutboxEmailStatus {
+    PENDING,
+    SENT,
+    // gave up after the maximum number of attempts
+    FAILED
+}
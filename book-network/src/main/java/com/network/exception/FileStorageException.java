@@ -0,0 +1,7 @@
+package com.network.exception;
+
+public class FileStorageException extends RuntimeException {
+    public FileStorageException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.network.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String msg) {
+        super(msg);
+    }
+}
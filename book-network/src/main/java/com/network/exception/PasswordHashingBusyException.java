@@ -0,0 +1,16 @@
+package com.network.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(String msg, Duration retryAfter) {
+        super(msg);
+        this.retryAfter = retryAfter;
+    }
+}
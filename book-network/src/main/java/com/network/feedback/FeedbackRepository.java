@@ -1,9 +1,13 @@
 package com.network.feedback;
 
+import com.network.book.BookRatingAggregate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
 
@@ -13,4 +17,22 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
         WHERE feedback.book.id = :bookId
         """)
     Page<Feedback> finAllByBookId(Integer bookId, Pageable pageable);
+
+    @Query("""
+        SELECT new com.network.book.BookRatingAggregate(
+            feedback.book.id,
+            SUM(feedback.note),
+            COUNT(feedback.note),
+            SUM(CASE WHEN feedback.note < 1.5 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN feedback.note >= 1.5 AND feedback.note < 2.5 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN feedback.note >= 2.5 AND feedback.note < 3.5 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN feedback.note >= 3.5 AND feedback.note < 4.5 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN feedback.note >= 4.5 THEN 1 ELSE 0 END)
+        )
+        FROM Feedback feedback
+        WHERE feedback.book.id IN :bookIds
+        AND feedback.note IS NOT NULL
+        GROUP BY feedback.book.id
+        """)
+    List<BookRatingAggregate> aggregateRatingsByBookIds(@Param("bookIds") List<Integer> bookIds);
 }
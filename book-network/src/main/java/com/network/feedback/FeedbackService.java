@@ -3,18 +3,22 @@ package com.network.feedback;
 import com.network.book.BookRepository;
 import com.network.common.PageResponse;
 import com.network.exception.OperationNotPermittedException;
-import com.network.user.User;
+import com.network.user.UserPrincipal;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
 
+import static com.network.config.CacheConfig.BOOK_RESPONSES;
+
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
@@ -22,18 +26,27 @@ public class FeedbackService {
     private final BookRepository bookRepository;
     private final FeedBackMapper feedBackMapper;
     private final FeedbackRepository feedbackRepository;
+
+    @Transactional
+    @CacheEvict(cacheNames = BOOK_RESPONSES, key = "#request.bookId()")
     public Integer save(FeedbackRequest request, Authentication connectedUser) {
-        var book = bookRepository.findById(request.bookId())
+        var book = bookRepository.findByIdForUpdate(request.bookId())
                 .orElseThrow(() -> new EntityNotFoundException("No book found with the ID:: " + request.bookId()));
         if (book.isArchived() || !book.isShareable()) {
             throw new OperationNotPermittedException("You cannot give a feedback for an archived or not shareable");
         }
-        var user = (User) connectedUser.getPrincipal();
+        var user = (UserPrincipal) connectedUser.getPrincipal();
         if (Objects.equals(book.getOwner().getId(), user.getId())) {
             throw new OperationNotPermittedException("You cannot give a feedback to your own book");
         }
         var feedback = feedBackMapper.toFeedback(request);
-        return feedbackRepository.save(feedback).getId();
+        var feedbackId = feedbackRepository.save(feedback).getId();
+        if (request.note() != null) {
+            // the row is locked, so concurrent feedbacks never lose an update, and the write only
+            // replaces this book's second level cache entry instead of evicting the whole region
+            book.addRating(request.note());
+        }
+        return feedbackId;
     }
 
     public PageResponse<FeedbackResponse> findAllFeedbacksByBooks(
@@ -42,7 +55,7 @@ public class FeedbackService {
             int size,
             Authentication connectedUser) {
         Pageable pageable = PageRequest.of(page, size);
-        User user = (User) connectedUser.getPrincipal();
+        UserPrincipal user = (UserPrincipal) connectedUser.getPrincipal();
         Page<Feedback> feedbacks = feedbackRepository.finAllByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponses = feedbacks.stream()
                 .map(f -> feedBackMapper.toFeedbackResponse(f, user.getId()))
@@ -0,0 +1,6 @@
+package com.network.file;
+
+import java.time.Instant;
+
+public record BlobInfo(String key, long size, Instant lastModified) {
+}
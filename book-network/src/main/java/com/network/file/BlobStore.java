@@ -0,0 +1,55 @@
+package com.network.file;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where stored files live. Keys are relative, '/' separated paths such as
+ * covers/9f/86/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.jpg,
+ * and are what Book.bookCover and StoredFile.path hold.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the file under the key, replacing any previous content. The source may be moved into place,
+     * callers must not use it afterwards.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    boolean exists(String key);
+
+    /**
+     * @throws java.nio.file.NoSuchFileException when nothing is stored under the key
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * @return a resource the application can stream (and range-serve) to the client, or null when nothing is stored under the key
+     */
+    Resource resource(String key);
+
+    void delete(String key) throws IOException;
+
+    /**
+     * The moved file is last modified now, as an S3 copy is.
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * Lists keys in lexicographic order, so a long listing can be resumed from the last key seen.
+     *
+     * @param prefix     empty to list the whole store
+     * @param startAfter only keys after this one are returned, null to start from the beginning
+     */
+    List<BlobInfo> list(String prefix, String startAfter, int limit) throws IOException;
+
+    /**
+     * A URL clients can fetch the file from without going through the application, when the store offers one.
+     */
+    Optional<PresignedUrl> directUrl(String key);
+}
@@ -0,0 +1,135 @@
+package com.network.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bytes of the most requested covers, kept in direct buffers outside the Java heap and bounded by their
+ * total size. Caffeine evicts with W-TinyLFU, so a burst of one-off reads does not push the trending covers out.
+ * Keys are content-addressed, a cached cover never goes stale.
+ * <p>
+ * Evicted buffers are released by the garbage collector once no response is writing them anymore, the JVM
+ * must be given room for them with -XX:MaxDirectMemorySize.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoverBytesCache {
+
+    private final BlobStore blobStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.file.cover.cache.maximum-size:64MB}")
+    private DataSize maximumSize;
+
+    // larger covers are streamed from the store, a few of them would take the room of hundreds of thumbnails
+    @Value("${application.file.cover.cache.maximum-entry-size:1MB}")
+    private DataSize maximumEntrySize;
+
+    private Cache<String, ByteBuffer> cache;
+    // covers found too large, read from the store without going through the cache or its hit ratio again
+    private Cache<String, Boolean> oversized;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .<String, ByteBuffer>weigher((key, bytes) -> bytes.capacity())
+                .recordStats()
+                .build();
+        oversized = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .build();
+        // cache.gets (hit / miss), cache.evictions... tagged cache=cover-bytes
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cover-bytes");
+        Gauge.builder("book.cover.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of cover reads served from the cover cache")
+                .register(meterRegistry);
+        Gauge.builder("book.cover.cache.resident", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Off-heap bytes held by the cover cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the cover as a read-only view positioned on its bytes or, when it is too large to be cached or
+     * cannot be read, as the resource the store lookup returned; null when the store has no such cover
+     */
+    public CoverContent get(String key) {
+        if (oversized.getIfPresent(key) != null) {
+            var resource = blobStore.resource(key);
+            return resource == null ? null : new CoverContent(null, resource);
+        }
+        var uncached = new AtomicReference<Resource>();
+        var bytes = cache.get(key, k -> load(k, uncached));
+        if (bytes != null) {
+            return new CoverContent(bytes.duplicate(), null);
+        }
+        if (uncached.get() != null) {
+            return new CoverContent(null, uncached.get());
+        }
+        // another request loaded the same cover meanwhile and found it too large, or it does not exist
+        var resource = blobStore.resource(key);
+        return resource == null ? null : new CoverContent(null, resource);
+    }
+
+    /**
+     * Drops a cover that is no longer served, e.g. one just replaced, so it does not hold room a hot cover could use.
+     */
+    public void evict(String key) {
+        cache.invalidate(key);
+        oversized.invalidate(key);
+    }
+
+    private ByteBuffer load(String key, AtomicReference<Resource> uncached) {
+        var resource = blobStore.resource(key);
+        if (resource == null) {
+            return null;
+        }
+        try {
+            var size = resource.contentLength();
+            if (size > maximumEntrySize.toBytes()) {
+                oversized.put(key, Boolean.TRUE);
+                uncached.set(resource);
+                return null;
+            }
+            var bytes = ByteBuffer.allocateDirect((int) size);
+            // a file channel reads straight into the direct buffer
+            try (var channel = resource.readableChannel()) {
+                while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                    // keep reading
+                }
+            }
+            if (bytes.hasRemaining()) {
+                log.warn("The cover {} was shorter than announced, it is not cached", key);
+                uncached.set(resource);
+                return null;
+            }
+            return bytes.flip().asReadOnlyBuffer();
+        } catch (IOException e) {
+            log.warn("The cover {} could not be cached", key, e);
+            uncached.set(resource);
+            return null;
+        }
+    }
+
+    /**
+     * Exactly one of the cached bytes or the resource to stream.
+     */
+    public record CoverContent(ByteBuffer bytes, Resource resource) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.network.file;
+
+import lombok.Getter;
+
+/**
+ * Renditions kept for every book cover; the width is the bounding width in pixels.
+ */
+@Getter
+public enum CoverSize {
+
+    THUMBNAIL(96),
+    MEDIUM(320),
+    ORIGINAL(0);
+
+    private final int width;
+
+    CoverSize(int width) {
+        this.width = width;
+    }
+}
@@ -1,68 +1,183 @@
 package com.network.file;
 
+import com.network.exception.FileStorageException;
+import com.network.exception.OperationNotPermittedException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 import static java.io.File.separator;
-import static java.lang.System.currentTimeMillis;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
+    private final StoredFileRepository storedFileRepository;
+    private final BlobStore blobStore;
+
     @Value("${application.file.upload.photos-output-path}")
     private String fileUploadPath;
-    public String saveFile(
-           @NonNull MultipartFile sourceFile,
-           @NonNull Integer userId) {
-        final String fileUploadSubPath = "users" + separator + userId;
-        return uploadFile(sourceFile, fileUploadSubPath);
+
+    @Value("${application.file.upload.max-size:10MB}")
+    private DataSize maxFileSize;
+
+    @Value("${application.file.upload.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${application.file.upload.buffer-size:8KB}")
+    private DataSize bufferSize;
+
+    public StoredFile saveFile(@NonNull MultipartFile sourceFile) {
+        return uploadFile(sourceFile, "covers");
     }
 
-    public String uploadFile(
+    /**
+     * Streams the upload through a fixed-size buffer into a temp file, validates and hashes it,
+     * then stores it under a key derived from its SHA-256. Identical uploads end up in the same blob,
+     * so storing the same cover twice is a no-op and heap usage does not depend on the file size.
+     * The returned file holds one reference, which the caller hands over to a book or releases.
+     *
+     * @throws FileStorageException when the file could not be stored, the caller then keeps what it had
+     */
+    public StoredFile uploadFile(
             @NonNull MultipartFile sourceFile,
             @NonNull String fileUploadSubPath) {
         var finalUploadPath = fileUploadPath + separator + fileUploadSubPath;
         var targetFolder = new File(finalUploadPath);
         if (!targetFolder.exists()) {
             var folderCreated = targetFolder.mkdirs();
-            if (!folderCreated) {
-                log.warn("Failed to created the target folder");
-                return null;
+            if (!folderCreated && !targetFolder.exists()) {
+                throw new FileStorageException("Failed to create the upload folder " + finalUploadPath, null);
             }
         }
-        var fileExtension = getFileExtension(sourceFile.getOriginalFilename());
-        // ./upload/users/1/232423232.jpg
-        var targetFilePath = finalUploadPath + separator + currentTimeMillis() + "." + fileExtension;
-        var targetPath = Paths.get(targetFilePath);
+        Path tempPath = null;
         try {
-            Files.write(targetPath, sourceFile.getBytes());
-            log.info("File save to : " + targetFilePath);
-            return targetFilePath;
-        } catch (IOException e) {
+            // staged on the file system of the local store, which then only has to rename it
+            tempPath = Files.createTempFile(targetFolder.toPath(), "upload-", ".tmp");
+            var digest = MessageDigest.getInstance("SHA-256");
+            var imageType = copyToTempFile(sourceFile, tempPath, digest);
+            checkPixelCount(tempPath);
+            var hash = HexFormat.of().formatHex(digest.digest());
+            // covers/9f/86/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.jpg
+            var key = String.join("/", fileUploadSubPath, hash.substring(0, 2), hash.substring(2, 4), hash + "." + imageType.getExtension());
+            var size = Files.size(tempPath);
+            // committed before an existing copy is relied upon: a sweep collecting this file holds the row
+            // until the file is gone, so the check below then stores it again, and no later sweep collects it
+            storedFileRepository.addReference(key, hash, size);
+            var stored = false;
+            try {
+                if (blobStore.exists(key)) {
+                    log.info("File already stored at : " + key);
+                } else {
+                    // a concurrent identical upload may win the race, it wrote the very same bytes
+                    blobStore.put(key, tempPath, FileUtils.contentType(key).toString());
+                    log.info("File save to : " + key);
+                }
+                stored = true;
+            } finally {
+                if (!stored) {
+                    removeReference(key);
+                }
+            }
+            return StoredFile.builder()
+                    .path(key)
+                    .hash(hash)
+                    .size(size)
+                    .build();
+        } catch (IOException | NoSuchAlgorithmException e) {
             log.error("File was not saved", e);
-            return null;
+            throw new FileStorageException("The file could not be stored", e);
+        } finally {
+            deleteQuietly(tempPath);
         }
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null || fileName.isEmpty()) {
-            return "";
+    public void removeReference(String path) {
+        if (path != null) {
+            storedFileRepository.removeReference(path);
         }
-        int lastDotIndex = fileName.lastIndexOf(".");
-        if (lastDotIndex == -1) {
-            return "";
+    }
+
+    private ImageType copyToTempFile(MultipartFile sourceFile, Path tempPath, MessageDigest digest) throws IOException {
+        var buffer = ByteBuffer.allocate((int) bufferSize.toBytes());
+        try (var in = Channels.newChannel(sourceFile.getInputStream());
+             var out = FileChannel.open(tempPath, WRITE)) {
+            // a channel read may return less than requested, make sure the whole header is there before sniffing
+            while (buffer.position() < ImageType.MAGIC_LENGTH && in.read(buffer) != -1) {
+                // keep reading
+            }
+            buffer.flip();
+            var imageType = ImageType.sniff(buffer);
+            if (imageType == null) {
+                throw new OperationNotPermittedException("The uploaded file is not a supported image (JPEG, PNG or GIF)");
+            }
+            long written = 0;
+            while (true) {
+                written += buffer.remaining();
+                if (written > maxFileSize.toBytes()) {
+                    throw new OperationNotPermittedException("The uploaded file exceeds the maximum size of " + maxFileSize);
+                }
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+                if (in.read(buffer) == -1) {
+                    return imageType;
+                }
+                buffer.flip();
+            }
+        }
+    }
+
+    /**
+     * Reads only the image header, a decompression bomb is rejected before anything is decoded.
+     */
+    private void checkPixelCount(Path imagePath) throws IOException {
+        try (var input = ImageIO.createImageInputStream(imagePath.toFile())) {
+            var readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new OperationNotPermittedException("The uploaded file is not a supported image (JPEG, PNG or GIF)");
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                var pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new OperationNotPermittedException("The uploaded image exceeds the maximum of " + maxPixels + " pixels");
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete the temporary file {}", path);
         }
-        return fileName.substring(lastDotIndex + 1).toLowerCase();
     }
 }
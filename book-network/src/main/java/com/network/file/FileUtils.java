@@ -2,24 +2,38 @@ package com.network.file;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 
 @Slf4j
 public class FileUtils {
-    public static byte[] readFileFromLocation(String fileUrl) {
-        if (StringUtils.isBlank(fileUrl)) {
+    public static byte[] readFileFromLocation(BlobStore blobStore, String key) {
+        if (StringUtils.isBlank(key)) {
             return null;
         }
-        try {
-            Path filePath = new File(fileUrl).toPath();
-            return Files.readAllBytes(filePath);
+        try (var in = blobStore.open(key)) {
+            return in.readAllBytes();
         } catch (IOException e) {
-            log.warn("No file found in the path {}", fileUrl);
+            log.warn("No file found in the path {}", key);
         }
         return null;
     }
+
+    /**
+     * Files are stored under their SHA-256, so the name doubles as a strong validator of the content.
+     */
+    public static String contentHash(String key) {
+        if (StringUtils.isBlank(key)) {
+            return null;
+        }
+        var fileName = key.substring(key.lastIndexOf('/') + 1);
+        var lastDotIndex = fileName.lastIndexOf(".");
+        return lastDotIndex == -1 ? fileName : fileName.substring(0, lastDotIndex);
+    }
+
+    public static MediaType contentType(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
 }
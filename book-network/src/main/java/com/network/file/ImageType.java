@@ -0,0 +1,44 @@
+package com.network.file;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Image formats accepted as book covers, recognised by their leading magic bytes rather than the client file name.
+ */
+@Getter
+public enum ImageType {
+
+    JPEG("jpg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    PNG("png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+    GIF("gif", new byte[]{'G', 'I', 'F', '8'});
+
+    public static final int MAGIC_LENGTH = 8;
+
+    private final String extension;
+    private final byte[] magic;
+
+    ImageType(String extension, byte[] magic) {
+        this.extension = extension;
+        this.magic = magic;
+    }
+
+    /**
+     * @param header buffer positioned at the start of the file, left untouched
+     * @return the matching type, or null when the content is not a supported image
+     */
+    public static ImageType sniff(ByteBuffer header) {
+        for (ImageType type : values()) {
+            if (header.remaining() >= type.magic.length) {
+                var prefix = new byte[type.magic.length];
+                header.get(header.position(), prefix);
+                if (Arrays.equals(prefix, type.magic)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+}
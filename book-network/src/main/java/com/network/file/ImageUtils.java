@@ -0,0 +1,79 @@
+package com.network.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+@Slf4j
+public class ImageUtils {
+
+    /**
+     * Writes a downscaled copy of the source image for every requested width (never upscaling).
+     * The source is decoded once, subsampled to about twice the largest width, so a huge original
+     * is never fully materialized in memory.
+     *
+     * @param targets target file by bounding width; a .jpg target is written as JPEG, anything else as PNG
+     */
+    public static void writeScaledCopies(InputStream source, Map<Integer, Path> targets) throws IOException {
+        var image = readSubsampled(source, Collections.max(targets.keySet()) * 2);
+        for (var target : targets.entrySet()) {
+            var jpeg = target.getValue().toString().endsWith(".jpg");
+            var scaled = scale(image, target.getKey(), jpeg);
+            var tempPath = Files.createTempFile(target.getValue().getParent(), "rendition-", ".tmp");
+            try {
+                if (!ImageIO.write(scaled, jpeg ? "jpg" : "png", tempPath.toFile())) {
+                    throw new IOException("No image writer available for " + target.getValue());
+                }
+                Files.move(tempPath, target.getValue(), ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    private static BufferedImage readSubsampled(InputStream source, int minWidth) throws IOException {
+        try (var input = ImageIO.createImageInputStream(source)) {
+            var readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image");
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                var subsampling = Math.max(1, reader.getWidth(0) / minWidth);
+                var param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int maxWidth, boolean opaque) {
+        var width = Math.min(maxWidth, image.getWidth());
+        var height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        var scaled = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,152 @@
+package com.network.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps the files under a root directory, the key being the path relative to it.
+ */
+@Slf4j
+public class LocalFileSystemBlobStore implements BlobStore {
+
+    private final Path root;
+
+    public LocalFileSystemBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        var target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            // readers never see a partially written file, a concurrent put of the same key just wins the race
+            Files.move(source, target, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // the source is on another file system, copy it next to the target first
+            var tempPath = Files.createTempFile(target.getParent(), "blob-", ".tmp");
+            try {
+                Files.copy(source, tempPath, REPLACE_EXISTING);
+                Files.move(tempPath, target, ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public Resource resource(String key) {
+        var resource = new FileSystemResource(resolve(key));
+        if (!resource.isReadable()) {
+            log.warn("No file found in the path {}", resource.getPath());
+            return null;
+        }
+        return resource;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        var target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        Files.move(resolve(sourceKey), target, ATOMIC_MOVE, REPLACE_EXISTING);
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    @Override
+    public List<BlobInfo> list(String prefix, String startAfter, int limit) throws IOException {
+        var blobs = new ArrayList<BlobInfo>();
+        var directory = prefix.isEmpty() ? root : resolve(prefix);
+        if (Files.isDirectory(directory)) {
+            collect(directory, startAfter, limit, blobs);
+        }
+        return blobs;
+    }
+
+    /**
+     * Walks the tree depth first with every directory listing sorted, which yields keys in the same order as an
+     * S3 listing. Subtrees holding only keys up to startAfter are not even listed.
+     */
+    private void collect(Path directory, String startAfter, int limit, List<BlobInfo> blobs) throws IOException {
+        List<Path> children;
+        try (var stream = Files.list(directory)) {
+            children = stream.sorted(Comparator.comparing(this::sortKey)).toList();
+        } catch (NoSuchFileException e) {
+            // removed since its parent was listed
+            return;
+        }
+        for (var child : children) {
+            if (blobs.size() >= limit) {
+                return;
+            }
+            var key = key(child);
+            if (Files.isDirectory(child)) {
+                var directoryKey = key + "/";
+                if (startAfter == null || directoryKey.compareTo(startAfter) > 0 || startAfter.startsWith(directoryKey)) {
+                    collect(child, startAfter, limit, blobs);
+                }
+            } else if (startAfter == null || key.compareTo(startAfter) > 0) {
+                try {
+                    var attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                    blobs.add(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                } catch (NoSuchFileException e) {
+                    // deleted meanwhile
+                }
+            }
+        }
+    }
+
+    private String sortKey(Path path) {
+        return Files.isDirectory(path) ? key(path) + "/" : key(path);
+    }
+
+    private String key(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    @Override
+    public Optional<PresignedUrl> directUrl(String key) {
+        return Optional.empty();
+    }
+
+    private Path resolve(String key) {
+        var path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid key " + key);
+        }
+        return path;
+    }
+}
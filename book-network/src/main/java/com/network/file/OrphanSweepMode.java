@@ -0,0 +1,13 @@
+package com.network.file;
+
+public enum OrphanSweepMode {
+    /**
+     * Only reports the orphans.
+     */
+    DRY_RUN,
+    /**
+     * Moves the orphans under the quarantine prefix, from where they can be restored or purged.
+     */
+    QUARANTINE,
+    DELETE
+}
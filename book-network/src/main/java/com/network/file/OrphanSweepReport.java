@@ -0,0 +1,18 @@
+package com.network.file;
+
+import lombok.Builder;
+
+/**
+ * @param purged        quarantined files deleted once their retention was over
+ * @param passCompleted whether the run reached the end of the tree, the next run then starts over
+ */
+@Builder
+public record OrphanSweepReport(
+        OrphanSweepMode mode,
+        long scanned,
+        long orphans,
+        long orphanBytes,
+        long purged,
+        boolean passCompleted
+) {
+}
@@ -0,0 +1,227 @@
+package com.network.file;
+
+import com.network.book.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes stored files no book uses anymore: covers replaced by a new upload and covers of deleted books.
+ * <p>
+ * Each run lists the next keys of the store after the checkpoint left by the previous one, one batch at a time,
+ * and looks each batch up against the book covers and the stored_file reference counts. A file is an orphan when
+ * nothing references it and neither the file nor its last dereference is younger than the grace period, which
+ * leaves room for uploads and renditions whose book is not saved yet. Each orphan is checked once more and collected
+ * under its stored_file row lock, the lock an upload of the same content takes its reference under. Blob operations
+ * are paced to the IO budget, so a sweep does not compete with cover traffic.
+ * <p>
+ * The walk covers the whole store by default, legacy uploads included. Quarantined files are never orphans, they are
+ * deleted once older than the quarantine retention.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanedFileSweeper {
+
+    private final BlobStore blobStore;
+    private final BookRepository bookRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.file.gc.mode:DRY_RUN}")
+    private OrphanSweepMode mode;
+
+    @Value("${application.file.gc.prefix:}")
+    private String prefix;
+
+    @Value("${application.file.gc.quarantine-prefix:quarantine/}")
+    private String quarantinePrefix;
+
+    @Value("${application.file.gc.quarantine-retention:P30D}")
+    private Duration quarantineRetention;
+
+    @Value("${application.file.gc.grace-period:P7D}")
+    private Duration gracePeriod;
+
+    @Value("${application.file.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.file.gc.max-keys-per-run:20000}")
+    private int maxKeysPerRun;
+
+    // blob operations (files listed, moved or deleted) per second
+    @Value("${application.file.gc.io-budget:500}")
+    private int ioBudget;
+
+    // last key examined, the next run resumes after it; each instance walks the tree on its own
+    private String checkpoint;
+
+    @Scheduled(
+            initialDelayString = "${application.file.gc.initial-delay:PT10M}",
+            fixedDelayString = "${application.file.gc.interval:PT1H}"
+    )
+    public synchronized OrphanSweepReport sweep() {
+        var startedAt = System.nanoTime();
+        var cutoff = Instant.now().minus(gracePeriod);
+        var dereferencedBefore = LocalDateTime.now().minus(gracePeriod);
+        var quarantinedBefore = Instant.now().minus(quarantineRetention);
+        long operations = 0;
+        long scanned = 0;
+        long orphans = 0;
+        long orphanBytes = 0;
+        long purged = 0;
+        var passCompleted = false;
+        try {
+            while (scanned < maxKeysPerRun) {
+                var batch = blobStore.list(prefix, checkpoint, (int) Math.min(batchSize, maxKeysPerRun - scanned));
+                if (batch.isEmpty()) {
+                    passCompleted = true;
+                    break;
+                }
+                scanned += batch.size();
+                operations += batch.size();
+                for (var expired : findExpired(batch, quarantinedBefore)) {
+                    purge(expired);
+                    purged++;
+                    operations += mode == OrphanSweepMode.DRY_RUN ? 0 : 1;
+                }
+                for (var orphan : findOrphans(batch, cutoff, dereferencedBefore)) {
+                    if (!collect(orphan, dereferencedBefore)) {
+                        continue;
+                    }
+                    orphans++;
+                    orphanBytes += orphan.size();
+                    operations += mode == OrphanSweepMode.DRY_RUN ? 0 : 1;
+                }
+                checkpoint = batch.get(batch.size() - 1).key();
+                pace(startedAt, operations);
+            }
+        } catch (IOException e) {
+            log.error("The orphaned file sweep stopped after {}", checkpoint, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (passCompleted) {
+            checkpoint = null;
+        }
+        var report = OrphanSweepReport.builder()
+                .mode(mode)
+                .scanned(scanned)
+                .orphans(orphans)
+                .orphanBytes(orphanBytes)
+                .purged(purged)
+                .passCompleted(passCompleted)
+                .build();
+        log.info("Orphaned file sweep ({}): {} files scanned, {} orphans for {} bytes, {} quarantined files purged{}",
+                mode, scanned, orphans, orphanBytes, purged, passCompleted ? ", pass completed" : "");
+        return report;
+    }
+
+    private List<BlobInfo> findOrphans(List<BlobInfo> batch, Instant cutoff, LocalDateTime dereferencedBefore) {
+        var candidates = batch.stream()
+                .filter(blob -> blob.lastModified().isBefore(cutoff))
+                .filter(blob -> !blob.key().startsWith(quarantinePrefix))
+                .toList();
+        return withoutReferenced(candidates, dereferencedBefore);
+    }
+
+    private List<BlobInfo> findExpired(List<BlobInfo> batch, Instant quarantinedBefore) {
+        return batch.stream()
+                .filter(blob -> blob.key().startsWith(quarantinePrefix))
+                .filter(blob -> blob.lastModified().isBefore(quarantinedBefore))
+                .toList();
+    }
+
+    private List<BlobInfo> withoutReferenced(List<BlobInfo> blobs, LocalDateTime dereferencedBefore) {
+        if (blobs.isEmpty()) {
+            return blobs;
+        }
+        var keys = blobs.stream().map(BlobInfo::key).toList();
+        var referenced = new HashSet<>(bookRepository.findReferencedCovers(keys));
+        referenced.addAll(storedFileRepository.findRetainedPaths(keys, dereferencedBefore));
+        return blobs.stream()
+                .filter(blob -> !referenced.contains(blob.key()))
+                .toList();
+    }
+
+    /**
+     * @return false when an upload of the same content referenced the file again since the batch lookup
+     */
+    private boolean collect(BlobInfo orphan, LocalDateTime dereferencedBefore) throws IOException {
+        if (mode == OrphanSweepMode.DRY_RUN) {
+            log.info("Orphaned file {} ({} bytes, last modified {})", orphan.key(), orphan.size(), orphan.lastModified());
+        } else {
+            try {
+                var collected = transactionTemplate.execute(status -> {
+                    storedFileRepository.insertUnreferenced(orphan.key());
+                    storedFileRepository.findByPathForUpdate(orphan.key());
+                    if (withoutReferenced(List.of(orphan), dereferencedBefore).isEmpty()) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    storedFileRepository.deleteUnreferenced(orphan.key(), dereferencedBefore);
+                    // still under the row lock, an upload waiting on it finds the file gone and stores it again
+                    try {
+                        if (mode == OrphanSweepMode.QUARANTINE) {
+                            blobStore.move(orphan.key(), quarantinePrefix + orphan.key());
+                        } else {
+                            blobStore.delete(orphan.key());
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(collected)) {
+                    return false;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        orphanCounter("file.gc.orphans").increment();
+        orphanCounter("file.gc.orphan.bytes").increment(orphan.size());
+        return true;
+    }
+
+    private void purge(BlobInfo expired) throws IOException {
+        if (mode == OrphanSweepMode.DRY_RUN) {
+            log.info("Expired quarantined file {} (quarantined {})", expired.key(), expired.lastModified());
+            return;
+        }
+        blobStore.delete(expired.key());
+        orphanCounter("file.gc.quarantine.purged").increment();
+    }
+
+    private Counter orphanCounter(String name) {
+        return Counter.builder(name)
+                .tag("mode", mode.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sleeps until the operations done since the start of the run fit in the IO budget.
+     */
+    private void pace(long startedAt, long operations) throws InterruptedException {
+        var budgetNanos = TimeUnit.SECONDS.toNanos(operations) / ioBudget;
+        var aheadNanos = budgetNanos - (System.nanoTime() - startedAt);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.network.file;
+
+import java.net.URI;
+import java.time.Instant;
+
+public record PresignedUrl(URI uri, Instant expiresAt) {
+}
@@ -0,0 +1,377 @@
+package com.network.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Keeps the files in an S3 compatible bucket (AWS S3, MinIO...). Files above the multipart threshold are
+ * uploaded in parts read straight from their range of the source file, several parts at a time, so a large
+ * file is neither buffered in memory nor sent over a single connection.
+ */
+@Slf4j
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    private final S3Client s3;
+    // null when covers are streamed through the application
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String cacheControl;
+    private final long multipartThreshold;
+    private final long partSize;
+    private final Duration presignTtl;
+    private final ExecutorService partExecutor;
+
+    public S3BlobStore(
+            S3Client s3,
+            S3Presigner presigner,
+            String bucket,
+            String cacheControl,
+            long multipartThreshold,
+            long partSize,
+            Duration presignTtl,
+            ExecutorService partExecutor
+    ) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.cacheControl = cacheControl;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.presignTtl = presignTtl;
+        this.partExecutor = partExecutor;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        var size = Files.size(source);
+        try {
+            if (size < multipartThreshold) {
+                s3.putObject(PutObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .cacheControl(cacheControl)
+                                .build(),
+                        RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("The file " + key + " was not stored", e);
+        }
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) throws IOException {
+        var uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .cacheControl(cacheControl)
+                        .build())
+                .uploadId();
+        try {
+            var parts = new ArrayList<CompletableFuture<CompletedPart>>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                var partNumber = parts.size() + 1;
+                var start = offset;
+                var length = Math.min(partSize, size - offset);
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, partNumber, source, start, length),
+                        partExecutor
+                ));
+            }
+            // parts are listed in order whatever order they completed in
+            var completed = parts.stream().map(CompletableFuture::join).toList();
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+        } catch (CompletionException | SdkException e) {
+            abortQuietly(key, uploadId);
+            var cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("The multipart upload of " + key + " failed", cause);
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length) {
+        var response = s3.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .build(),
+                // a fresh stream per attempt, so the SDK can retry a part
+                RequestBody.fromContentProvider(() -> openRange(source, offset, length), length, "application/octet-stream"));
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    private static InputStream openRange(Path source, long offset, long length) {
+        try {
+            var channel = FileChannel.open(source, READ);
+            channel.position(offset);
+            return new RangeInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void abortQuietly(String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            // the bucket lifecycle rule for incomplete uploads cleans it up eventually
+            log.warn("The multipart upload {} of {} was not aborted", uploadId, key, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return head(key).isPresent();
+    }
+
+    private Optional<HeadObjectResponse> head(String key) {
+        try {
+            return Optional.of(s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD responses have no body, a missing key may only show as a bare 404
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("The file " + key + " could not be read", e);
+        }
+    }
+
+    @Override
+    public Resource resource(String key) {
+        return head(key)
+                .map(head -> (Resource) new S3ObjectResource(key, head))
+                .orElseGet(() -> {
+                    log.warn("No object found for the key {}", key);
+                    return null;
+                });
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("The file " + key + " was not deleted", e);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        try {
+            s3.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket)
+                    .sourceKey(sourceKey)
+                    .destinationBucket(bucket)
+                    .destinationKey(targetKey)
+                    .build());
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(sourceKey).build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(sourceKey);
+        } catch (SdkException e) {
+            throw new IOException("The file " + sourceKey + " was not moved", e);
+        }
+    }
+
+    @Override
+    public List<BlobInfo> list(String prefix, String startAfter, int limit) throws IOException {
+        try {
+            return s3.listObjectsV2(ListObjectsV2Request.builder()
+                            .bucket(bucket)
+                            .prefix(prefix)
+                            .startAfter(startAfter)
+                            .maxKeys(limit)
+                            .build())
+                    .contents()
+                    .stream()
+                    .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified()))
+                    .toList();
+        } catch (SdkException e) {
+            throw new IOException("The files under " + prefix + " could not be listed", e);
+        }
+    }
+
+    @Override
+    public Optional<PresignedUrl> directUrl(String key) {
+        if (presigner == null) {
+            return Optional.empty();
+        }
+        var presigned = presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(presignTtl)
+                .getObjectRequest(GetObjectRequest.builder().bucket(bucket).key(key).build())
+                .build());
+        try {
+            return Optional.of(new PresignedUrl(presigned.url().toURI(), presigned.expiration()));
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid presigned URL for " + key, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        partExecutor.shutdown();
+        s3.close();
+        if (presigner != null) {
+            presigner.close();
+        }
+    }
+
+    /**
+     * Streams the object when covers are served through the application.
+     */
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final HeadObjectResponse head;
+
+        private S3ObjectResource(String key, HeadObjectResponse head) {
+            this.key = key;
+            this.head = head;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return open(key);
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException(key);
+            }
+        }
+
+        @Override
+        public long contentLength() {
+            return head.contentLength();
+        }
+
+        @Override
+        public long lastModified() {
+            var lastModified = head.lastModified();
+            return lastModified == null ? Instant.EPOCH.toEpochMilli() : lastModified.toEpochMilli();
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+    }
+
+    /**
+     * Ends after the given number of bytes, the part stream must not run into the next part.
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            var b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            var read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.network.file;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A content-addressed file and the number of books referencing it through Book.bookCover.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class StoredFile {
+
+    @Id
+    private String path;
+    @Column(nullable = false, length = 64)
+    private String hash;
+    private long size;
+    private int referenceCount;
+    private LocalDateTime createdAt;
+    // last time the reference count changed, orphans are only collected after a grace period
+    private LocalDateTime referencedAt;
+}
@@ -0,0 +1,101 @@
+package com.network.file;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    // declares the table it writes, an undeclared native write would evict every second level cache region
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stored_file"))
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO stored_file (path, hash, size, reference_count, created_at, referenced_at)
+        VALUES (:path, :hash, :size, 1, now(), now())
+        ON CONFLICT (path) DO UPDATE
+        SET reference_count = stored_file.reference_count + 1,
+            referenced_at = now()
+        """, nativeQuery = true)
+    void addReference(@Param("path") String path, @Param("hash") String hash, @Param("size") long size);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE StoredFile file
+        SET file.referenceCount = file.referenceCount - 1,
+            file.referencedAt = CURRENT_TIMESTAMP
+        WHERE file.path = :path
+        AND file.referenceCount > 0
+        """)
+    void removeReference(@Param("path") String path);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE stored_file
+        SET path = substr(path, length(:prefix) + 1)
+        WHERE starts_with(path, :prefix)
+        """, nativeQuery = true)
+    int stripPathPrefix(@Param("prefix") String prefix);
+
+    /**
+     * Gives a file without a row, e.g. a rendition, one dereferenced long ago to lock; an upload taking a reference
+     * on the same path waits for the inserting transaction to end.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stored_file"))
+    @Modifying
+    @Query(value = """
+        INSERT INTO stored_file (path, hash, size, reference_count, created_at, referenced_at)
+        VALUES (:path, '', 0, 0, 'epoch', 'epoch')
+        ON CONFLICT (path) DO NOTHING
+        """, nativeQuery = true)
+    void insertUnreferenced(@Param("path") String path);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT file
+        FROM StoredFile file
+        WHERE file.path = :path
+        """)
+    Optional<StoredFile> findByPathForUpdate(@Param("path") String path);
+
+    /**
+     * @return the paths among the given ones still referenced, or dereferenced after the given time
+     */
+    @Query("""
+        SELECT file.path
+        FROM StoredFile file
+        WHERE file.path IN :paths
+        AND (file.referenceCount > 0 OR file.referencedAt > :dereferencedBefore)
+        """)
+    List<String> findRetainedPaths(
+            @Param("paths") Collection<String> paths,
+            @Param("dereferencedBefore") LocalDateTime dereferencedBefore
+    );
+
+    /**
+     * Only deletes the row while nothing references the file, a concurrent upload of the same content keeps it.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM StoredFile file
+        WHERE file.path = :path
+        AND file.referenceCount = 0
+        AND file.referencedAt <= :dereferencedBefore
+        """)
+    int deleteUnreferenced(@Param("path") String path, @Param("dereferencedBefore") LocalDateTime dereferencedBefore);
+}
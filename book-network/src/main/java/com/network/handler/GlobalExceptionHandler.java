@@ -1,7 +1,11 @@
 package com.network.handler;
 
+import com.network.exception.FileStorageException;
+import com.network.exception.InvalidCursorException;
 import com.network.exception.OperationNotPermittedException;
+import com.network.exception.PasswordHashingBusyException;
 import jakarta.mail.MessagingException;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -14,6 +18,7 @@ import java.util.Set;
 
 import static com.network.handler.BusinessErrorCodes.ACCOUNT_DISABLED;
 import static com.network.handler.BusinessErrorCodes.BAD_CREDENTIALS;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.HttpStatus.*;
 
 @RestControllerAdvice
@@ -103,4 +108,53 @@ public class GlobalExceptionHandler {
                                 .build()
                 );
     }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ExceptionResponse> handleException(PasswordHashingBusyException e) {
+        return ResponseEntity
+                .status(SERVICE_UNAVAILABLE)
+                .header(RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(
+                        ExceptionResponse
+                                .builder()
+                                .error(e.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ExceptionResponse> handleException(InvalidCursorException e) {
+        return ResponseEntity
+                .status(BAD_REQUEST)
+                .body(
+                        ExceptionResponse
+                                .builder()
+                                .error(e.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleException(EntityNotFoundException e) {
+        return ResponseEntity
+                .status(NOT_FOUND)
+                .body(
+                        ExceptionResponse
+                                .builder()
+                                .error(e.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(FileStorageException.class)
+    public ResponseEntity<ExceptionResponse> handleException(FileStorageException e) {
+        return ResponseEntity
+                .status(SERVICE_UNAVAILABLE)
+                .body(
+                        ExceptionResponse
+                                .builder()
+                                .error(e.getMessage())
+                                .build()
+                );
+    }
 }
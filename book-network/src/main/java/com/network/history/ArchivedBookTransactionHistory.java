@@ -0,0 +1,48 @@
+package com.network.history;
+
+import com.network.book.Book;
+import com.network.user.User;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed loans moved out of book_transaction_history by {@link BookTransactionHistoryArchiver}.
+ * Rows keep their original id and audit columns; they are only written by the archiver's bulk move.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "book_transaction_history_archive", indexes = {
+        @Index(name = "idx_history_archive_user_created_date_id", columnList = "user_id, createdDate, id"),
+        @Index(name = "idx_history_archive_book_created_date_id", columnList = "book_id, createdDate, id")
+})
+public class ArchivedBookTransactionHistory {
+
+    @Id
+    private Integer id;
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+    @Column(nullable = false, updatable = false)
+    private Integer createdBy;
+    private LocalDateTime lastModifiedDate;
+    private Integer lastModifiedBy;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    private boolean returned;
+    private boolean returnedApproved;
+    private LocalDateTime dueDate;
+    @Column(nullable = false)
+    private LocalDateTime archivedDate;
+}
@@ -3,31 +3,39 @@ package com.network.history;
 import com.network.book.Book;
 import com.network.common.BaseEntity;
 import com.network.user.User;
-import jakarta.persistence.Entity;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
+import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @SuperBuilder
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_history_user_created_date_id", columnList = "user_id, createdDate, id"),
+        @Index(name = "idx_history_approved_created_date", columnList = "returnedApproved, createdDate"),
+        @Index(name = "idx_history_returned_due_date_id", columnList = "returned, dueDate, id")
+})
 public class BookTransactionHistory extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
     private boolean returned;
     private boolean returnedApproved;
+    private LocalDateTime dueDate;
+    // last overdue reminder that covered this loan
+    private LocalDateTime reminderSentDate;
 }
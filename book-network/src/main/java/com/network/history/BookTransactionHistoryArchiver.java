@@ -0,0 +1,52 @@
+package com.network.history;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Moves closed loans out of the hot history table, one small batch per transaction,
+ * so the queries on open loans keep working on a table that does not grow forever.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookTransactionHistoryArchiver {
+
+    private final BookTransactionHistoryRepository historyRepository;
+
+    @Value("${application.history.archive.min-age:P365D}")
+    private Duration minAge;
+    @Value("${application.history.archive.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${application.history.archive.initial-delay:PT5M}",
+            fixedDelayString = "${application.history.archive.interval:PT1H}"
+    )
+    public void archive() {
+        var before = archivedBefore();
+        var archived = 0;
+        int moved;
+        do {
+            moved = historyRepository.archiveClosedLoansBefore(before, batchSize);
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            log.info("Archived {} closed loans opened before {}", archived, before);
+        }
+    }
+
+    /**
+     * Every archived loan was opened before this date, so a history page whose rows are all
+     * newer does not need to look at the archive.
+     */
+    public LocalDateTime archivedBefore() {
+        return LocalDateTime.now().minus(minAge);
+    }
+}
@@ -1,64 +1,171 @@
 package com.network.history;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
 
-    @Query("""
-        SELECT history
+    @Query(value = """
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
         FROM BookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE history.user.id = :userId
+        """,
+        countQuery = """
+        SELECT COUNT(history)
+        FROM CombinedBookTransactionHistory history
         WHERE history.user.id = :userId
         """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(PageRequest pageable, Integer userId);
-    @Query("""
-        SELECT history
+    Page<BorrowedBookSummary> findAllBorrowedBooks(PageRequest pageable, Integer userId);
+
+    @Query(value = """
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
         FROM BookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE owner.id = :userId
+        """,
+        countQuery = """
+        SELECT COUNT(history)
+        FROM CombinedBookTransactionHistory history
         WHERE history.book.owner.id = :userId
         """)
-    Page<BookTransactionHistory> findAllReturnedBooks(PageRequest pageable, Integer userId);
+    Page<BorrowedBookSummary> findAllReturnedBooks(PageRequest pageable, Integer userId);
 
     @Query("""
-        SELECT
-            (COUNT (*)  > 0) AS isBorrowed
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
         FROM BookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
         WHERE history.user.id = :userId
-        AND history.book.id = :bookId
-        AND history.returnedApproved = false
+        AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+        ORDER BY history.createdDate DESC, history.id DESC
+        """)
+    List<BorrowedBookSummary> findAllBorrowedBooksBefore(
+            @Param("userId") Integer userId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM BookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE owner.id = :userId
+        AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+        ORDER BY history.createdDate DESC, history.id DESC
         """)
-    boolean isAlreadyBorrowedByUser(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+    List<BorrowedBookSummary> findAllReturnedBooksBefore(
+            @Param("userId") Integer userId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    /**
+     * Moves one batch of closed loans opened before the given date into the archive, in a single statement.
+     * Rows locked by a concurrent transaction are skipped and picked up by a later batch.
+     * Both tables are declared, the cached books are not invalidated by the archiving runs.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_transaction_history"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_transaction_history_archive")
+    })
+    @Modifying
+    @Transactional
+    @Query(value = """
+        WITH moved AS (
+            DELETE FROM book_transaction_history
+            WHERE id IN (
+                SELECT id
+                FROM book_transaction_history
+                WHERE returned_approved = true
+                AND created_date < :before
+                ORDER BY id
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, created_date, created_by, last_modified_date, last_modified_by, user_id, book_id, returned, returned_approved, due_date
+        )
+        INSERT INTO book_transaction_history_archive (
+            id, created_date, created_by, last_modified_date, last_modified_by, user_id, book_id, returned, returned_approved, due_date, archived_date
+        )
+        SELECT id, created_date, created_by, last_modified_date, last_modified_by, user_id, book_id, returned, returned_approved, due_date, now()
+        FROM moved
+        """, nativeQuery = true)
+    int archiveClosedLoansBefore(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
 
     @Query("""
-    SELECT 
-        (COUNT (*) > 0) AS isBorrowed
+        SELECT new com.network.history.OverdueLoan(history.id, history.dueDate, history.user.id, book.title, book.authorName)
         FROM BookTransactionHistory history
-        WHERE history.book.id = :bookId
-        AND history.returnedApproved = false 
-    """)
-    boolean isAlreadyBorrowed(@Param("bookId") Integer bookId);
+        JOIN history.book book
+        WHERE history.returned = false
+        AND history.dueDate < :now
+        AND (history.dueDate > :dueDate OR (history.dueDate = :dueDate AND history.id > :id))
+        AND (history.reminderSentDate IS NULL OR history.reminderSentDate < :remindBefore)
+        ORDER BY history.dueDate, history.id
+        """)
+    List<OverdueLoan> findOverdueLoansAfter(
+            @Param("now") LocalDateTime now,
+            @Param("remindBefore") LocalDateTime remindBefore,
+            @Param("dueDate") LocalDateTime dueDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
 
     @Query("""
-        SELECT transaction
-        FROM BookTransactionHistory transaction
-        WHERE transaction.book.owner.id = :userId
-        AND transaction.book.id = :bookId
-        AND transaction.returned = false
-        AND transaction.returnedApproved = false
-    """)
-    Optional<BookTransactionHistory> findByBookIdAndUserId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+        SELECT new com.network.history.OverdueLoan(history.id, history.dueDate, history.user.id, book.title, book.authorName)
+        FROM BookTransactionHistory history
+        JOIN history.book book
+        WHERE history.user.id = :userId
+        AND history.returned = false
+        AND history.dueDate < :now
+        AND (history.reminderSentDate IS NULL OR history.reminderSentDate < :remindBefore)
+        ORDER BY history.dueDate, history.id
+        """)
+    List<OverdueLoan> findOverdueLoansByBorrower(
+            @Param("userId") Integer userId,
+            @Param("now") LocalDateTime now,
+            @Param("remindBefore") LocalDateTime remindBefore
+    );
 
+    @Modifying
+    @Transactional
     @Query("""
-       SELECT transaction
-        FROM BookTransactionHistory transaction
-        WHERE transaction.user.id = :userId
-        AND transaction.book.id = :bookId
-        AND transaction.returned = true
-        AND transaction.returnedApproved =false
-    """)
-    Optional<BookTransactionHistory> findByBookIdAndOwnerId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+        UPDATE BookTransactionHistory history
+        SET history.reminderSentDate = :sentDate
+        WHERE history.id IN :ids
+        """)
+    int markReminderSent(@Param("ids") List<Integer> ids, @Param("sentDate") LocalDateTime sentDate);
 }
@@ -0,0 +1,28 @@
+package com.network.history;
+
+import com.network.common.Cursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-side row of the borrowed / returned listings, selected in one statement together with its book.
+ */
+public record BorrowedBookSummary(
+        Integer historyId,
+        LocalDateTime createdDate,
+        Integer bookId,
+        String title,
+        String authorName,
+        String isbn,
+        String owner,
+        double ratingSum,
+        int ratingCount,
+        boolean returned,
+        boolean returnedApproved,
+        LocalDateTime dueDate
+) {
+
+    public Cursor cursor() {
+        return new Cursor(createdDate, historyId);
+    }
+}
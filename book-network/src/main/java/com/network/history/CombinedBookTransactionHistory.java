@@ -0,0 +1,45 @@
+package com.network.history;
+
+import com.network.book.Book;
+import com.network.user.User;
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only union of the hot and archived loan history. Postgres pushes the filters of a query down
+ * into both branches, so each side is still read through its own indexes.
+ */
+@Getter
+@Entity
+@Immutable
+@Subselect("""
+        SELECT id, created_date, user_id, book_id, returned, returned_approved, due_date
+        FROM book_transaction_history
+        UNION ALL
+        SELECT id, created_date, user_id, book_id, returned, returned_approved, due_date
+        FROM book_transaction_history_archive
+        """)
+@Synchronize({"book_transaction_history", "book_transaction_history_archive"})
+public class CombinedBookTransactionHistory {
+
+    @Id
+    private Integer id;
+    private LocalDateTime createdDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    private boolean returned;
+    private boolean returnedApproved;
+    private LocalDateTime dueDate;
+}
@@ -0,0 +1,112 @@
+package com.network.history;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * History views over hot and archived loans, for pages that reach past the archive watermark.
+ */
+public interface CombinedBookTransactionHistoryRepository extends JpaRepository<CombinedBookTransactionHistory, Integer> {
+
+    @Query(value = """
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM CombinedBookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE history.user.id = :userId
+        """,
+        countQuery = """
+        SELECT COUNT(history)
+        FROM CombinedBookTransactionHistory history
+        WHERE history.user.id = :userId
+        """)
+    Page<BorrowedBookSummary> findAllBorrowedBooks(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query(value = """
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM CombinedBookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE owner.id = :userId
+        """,
+        countQuery = """
+        SELECT COUNT(history)
+        FROM CombinedBookTransactionHistory history
+        WHERE history.book.owner.id = :userId
+        """)
+    Page<BorrowedBookSummary> findAllReturnedBooks(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("""
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM CombinedBookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE history.user.id = :userId
+        AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+        ORDER BY history.createdDate DESC, history.id DESC
+        """)
+    List<BorrowedBookSummary> findAllBorrowedBooksBefore(
+            @Param("userId") Integer userId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM CombinedBookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE owner.id = :userId
+        AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+        ORDER BY history.createdDate DESC, history.id DESC
+        """)
+    List<BorrowedBookSummary> findAllReturnedBooksBefore(
+            @Param("userId") Integer userId,
+            @Param("createdDate") LocalDateTime createdDate,
+            @Param("id") Integer id,
+            Limit limit
+    );
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.network.history.BorrowedBookSummary(
+            history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+            CONCAT(owner.firstname, ' ', owner.lastname),
+            book.ratingSum, book.ratingCount, history.returned, history.returnedApproved, history.dueDate
+        )
+        FROM CombinedBookTransactionHistory history
+        JOIN history.book book
+        JOIN book.owner owner
+        WHERE owner.id = :userId
+        ORDER BY history.id
+        """)
+    Stream<BorrowedBookSummary> streamAllReturnedBooks(@Param("userId") Integer userId);
+}
@@ -0,0 +1,15 @@
+package com.network.history;
+
+import java.time.LocalDateTime;
+
+/**
+ * An open loan past its due date, with what the reminder digest shows of its book.
+ */
+public record OverdueLoan(
+        Integer historyId,
+        LocalDateTime dueDate,
+        Integer borrowerId,
+        String title,
+        String authorName
+) {
+}
@@ -0,0 +1,90 @@
+package com.network.history;
+
+import com.network.email.EmailService;
+import com.network.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Walks the open loans past their due date in (dueDate, id) order, one page at a time, and sends every
+ * borrower found a single digest of all their overdue loans. The digested loans are marked, so later pages
+ * of the same scan skip them and the borrower is reminded again only after the reminder interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OverdueLoanScanner {
+
+    // before any due date, the first page starts here
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BookTransactionHistoryRepository historyRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.book.loan.overdue.reminder-interval:P1D}")
+    private Duration reminderInterval;
+    @Value("${application.book.loan.overdue.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${application.book.loan.overdue.initial-delay:PT2M}",
+            fixedDelayString = "${application.book.loan.overdue.interval:PT1H}"
+    )
+    public void scan() {
+        var now = LocalDateTime.now();
+        var remindBefore = now.minus(reminderInterval);
+        var dueDate = SCAN_START;
+        var id = 0;
+        var digests = 0;
+        List<OverdueLoan> loans;
+        do {
+            loans = historyRepository.findOverdueLoansAfter(now, remindBefore, dueDate, id, Limit.of(batchSize));
+            if (loans.isEmpty()) {
+                break;
+            }
+            var borrowerIds = new LinkedHashSet<Integer>();
+            loans.forEach(loan -> borrowerIds.add(loan.borrowerId()));
+            for (var borrowerId : borrowerIds) {
+                if (sendDigest(borrowerId, now, remindBefore)) {
+                    digests++;
+                }
+            }
+            var last = loans.get(loans.size() - 1);
+            dueDate = last.dueDate();
+            id = last.historyId();
+        } while (loans.size() == batchSize);
+        if (digests > 0) {
+            log.info("Sent {} overdue loan digests", digests);
+        }
+    }
+
+    private boolean sendDigest(Integer borrowerId, LocalDateTime now, LocalDateTime remindBefore) {
+        // loans of this borrower already digested earlier in this scan are marked and not returned again
+        var loans = historyRepository.findOverdueLoansByBorrower(borrowerId, now, remindBefore);
+        if (loans.isEmpty()) {
+            return false;
+        }
+        var borrower = userRepository.findById(borrowerId).orElse(null);
+        if (borrower == null) {
+            return false;
+        }
+        // the digest is queued and the loans marked together, a digest is never lost nor queued twice
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendOverdueLoansDigest(borrower.getEmail(), borrower.getFullName(), loans);
+            historyRepository.markReminderSent(loans.stream().map(OverdueLoan::historyId).toList(), now);
+        });
+        return true;
+    }
+}
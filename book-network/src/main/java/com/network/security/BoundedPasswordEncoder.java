@@ -0,0 +1,158 @@
+package com.network.security;
+
+import com.network.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt on a small dedicated pool, so a burst of logins or registrations uses at most pool-size cores and
+ * ties up at most pool-size + queue-capacity request threads. Anything beyond that, or a hash that is not
+ * done within max-wait, fails at once with {@link PasswordHashingBusyException} instead of waiting.
+ */
+@Component
+@RequiredArgsConstructor
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.password.work-factor:10}")
+    private int workFactor;
+    @Value("${application.security.password.pool-size:2}")
+    private int poolSize;
+    @Value("${application.security.password.queue-capacity:32}")
+    private int queueCapacity;
+    @Value("${application.security.password.max-wait:PT2S}")
+    private Duration maxWait;
+    @Value("${application.security.password.retry-after:PT5S}")
+    private Duration retryAfter;
+
+    private BCryptPasswordEncoder delegate;
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Timer queueWaitTimer;
+    private Counter queueFullCounter;
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    void start() {
+        delegate = new BCryptPasswordEncoder(workFactor);
+        executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+        encodeTimer = hashTimer("encode");
+        matchTimer = hashTimer("matches");
+        queueWaitTimer = Timer.builder("auth.password.queue.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .register(meterRegistry);
+        queueFullCounter = rejectedCounter("queue-full");
+        timeoutCounter = rejectedCounter("timeout");
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(matchTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * A stored hash of another cost than the configured work factor is re-encoded after the next successful
+     * login. Under load the upgrade waits for a later login, it must not turn a valid login into a rejection.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return cost(encodedPassword) != workFactor && executor.getQueue().isEmpty();
+    }
+
+    private <T> T hash(Timer timer, Supplier<T> hashing) {
+        var submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.record(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            queueFullCounter.increment();
+            throw new PasswordHashingBusyException("Too many sign-in requests, please retry later", retryAfter);
+        }
+        try {
+            return result.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            timeoutCounter.increment();
+            throw new PasswordHashingBusyException("Too many sign-in requests, please retry later", retryAfter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // $2a$10$... -> 10, or -1 for anything that is not a BCrypt hash
+    private static int cost(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("Time spent computing one BCrypt hash")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder("auth.password.rejected")
+                .description("Password hashes refused because the hashing pool was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
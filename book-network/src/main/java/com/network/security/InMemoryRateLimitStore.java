@@ -0,0 +1,53 @@
+package com.network.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Each bucket is a single {@link AtomicLong}: the instant its tokens would be fully spent at the current
+ * refill rate, updated with a compare-and-set and never locked. Buckets not used for idle-timeout are evicted,
+ * a full bucket is what a new one starts as anyway.
+ */
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    @Value("${application.security.rate-limit.idle-timeout:PT10M}")
+    private Duration idleTimeout;
+    @Value("${application.security.rate-limit.maximum-size:100000}")
+    private long maximumSize;
+
+    private Cache<String, AtomicLong> buckets;
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public long tryConsume(String key, RateLimit limit) {
+        var bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        var perToken = limit.nanosPerToken();
+        var burst = perToken * limit.capacity();
+        while (true) {
+            var now = System.nanoTime();
+            var spentAt = bucket.get();
+            // an empty spentAt in the past means a full bucket
+            var next = (spentAt == Long.MIN_VALUE || spentAt - now < 0 ? now : spentAt) + perToken;
+            if (next - now > burst) {
+                return next - now - burst;
+            }
+            if (bucket.compareAndSet(spentAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.network.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a verified token says, read once per token and shared by every request that presents it.
+ */
+public record JwtClaims(
+        String tokenId,
+        String subject,
+        Integer userId,
+        String fullName,
+        Instant expiration,
+        List<String> authorities
+) {
+
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+}
@@ -1,5 +1,7 @@
 package com.network.security;
 
+import com.network.user.UserPrincipal;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,8 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,7 +25,9 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 
-    private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -38,27 +41,42 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         final String authHeader = request.getHeader(AUTHORIZATION);
         final String jwt;
-        final String userEmail;
+        final JwtClaims claims;
         if (authHeader == null || !authHeader.startsWith("Bearer ")){
             filterChain.doFilter(request, response);
             return;
         }
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource()
-                                .buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        try {
+            claims = jwtService.validate(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // an invalid token leaves the request anonymous, the security rules reject it
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // tokens issued before the user id and token id claims existed cannot be revoked and are not accepted
+        if (claims.userId() != null
+                && claims.tokenId() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !tokenRevocationService.isRevoked(claims.tokenId())
+                && userStatusCache.isActive(claims.userId())) {
+            var principal = new UserPrincipal(
+                    claims.userId(),
+                    claims.subject(),
+                    claims.fullName(),
+                    claims.authorities().stream().map(SimpleGrantedAuthority::new).toList()
+            );
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal,
+                    claims,
+                    principal.getAuthorities()
+            );
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource()
+                            .buildDetails(request)
+            );
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
+        filterChain.doFilter(request, response);
     }
 }
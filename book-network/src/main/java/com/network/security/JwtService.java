@@ -1,19 +1,33 @@
 package com.network.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 @Service
 public class JwtService {
@@ -24,22 +38,54 @@ public class JwtService {
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
-    String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    @Value("${application.security.jwt.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    private Key signKey;
+    private JwtParser parser;
+    // verified tokens by SHA-256 of the compact token, each entry expires with its token
+    private Cache<ByteBuffer, JwtClaims> validatedTokens;
+
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signKey)
+                .build();
+        validatedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<ByteBuffer, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, JwtClaims claims, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), claims.expiration()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the signature and expiry of a token and returns its claims. The signature is only checked
+     * the first time a token is seen; later calls are answered from the cache until the token expires.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public JwtClaims validate(String token) {
+        var claims = validatedTokens.get(hash(token), key -> toJwtClaims(parser.parseClaimsJws(token).getBody()));
+        if (claims.isExpired(Instant.now())) {
+            // the cache entry may outlive the token by the expiry granularity
+            throw new ExpiredJwtException(null, null, "JWT expired at " + claims.expiration());
+        }
+        return claims;
     }
 
     public String generateToken(UserDetails userDetails){
@@ -66,32 +112,33 @@ public class JwtService {
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .claim("authorities", authorities)
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    private JwtClaims toJwtClaims(Claims claims) {
+        @SuppressWarnings("unchecked")
+        List<String> authorities = claims.get("authorities", List.class);
+        return new JwtClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("userId", Integer.class),
+                claims.get("fullName", String.class),
+                claims.getExpiration().toInstant(),
+                authorities == null ? List.of() : List.copyOf(authorities)
+        );
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token)
-                .before(new Date());
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
 }
@@ -0,0 +1,16 @@
+package com.network.security;
+
+import java.time.Duration;
+
+/**
+ * A token bucket holding up to {@code capacity} requests and refilled with {@code capacity} tokens per {@code period}.
+ */
+public record RateLimit(
+        long capacity,
+        Duration period
+) {
+
+    public long nanosPerToken() {
+        return Math.max(1, period.toNanos() / capacity);
+    }
+}
@@ -0,0 +1,99 @@
+package com.network.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.handler.ExceptionResponse;
+import com.network.user.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Limits the request rate of each user, or of each client address for anonymous requests, per route group.
+ * Runs after {@link JwtFilter}, so an authenticated user keeps one limit across addresses.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitStore rateLimitStore;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.rate-limit.enabled:true}")
+    private boolean enabled;
+    @Value("${application.security.rate-limit.auth.capacity:10}")
+    private long authCapacity;
+    @Value("${application.security.rate-limit.auth.period:PT1M}")
+    private Duration authPeriod;
+    @Value("${application.security.rate-limit.reads.capacity:300}")
+    private long readsCapacity;
+    @Value("${application.security.rate-limit.reads.period:PT1M}")
+    private Duration readsPeriod;
+    @Value("${application.security.rate-limit.writes.capacity:60}")
+    private long writesCapacity;
+    @Value("${application.security.rate-limit.writes.period:PT1M}")
+    private Duration writesPeriod;
+
+    private final Map<RouteGroup, RateLimit> limits = new EnumMap<>(RouteGroup.class);
+
+    @PostConstruct
+    void init() {
+        limits.put(RouteGroup.AUTH, new RateLimit(authCapacity, authPeriod));
+        limits.put(RouteGroup.READS, new RateLimit(readsCapacity, readsPeriod));
+        limits.put(RouteGroup.WRITES, new RateLimit(writesCapacity, writesPeriod));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        var group = RouteGroup.of(request);
+        var waitNanos = rateLimitStore.tryConsume(group + ":" + client(request), limits.get(group));
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        meterRegistry.counter("http.server.requests.rate-limited", "group", group.name()).increment();
+        // whole seconds, rounded up so a client retrying on time is not rejected again
+        var retryAfter = Duration.ofNanos(waitNanos).plusNanos(999_999_999).toSeconds();
+        response.setStatus(TOO_MANY_REQUESTS.value());
+        response.setHeader(RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ExceptionResponse.builder()
+                .error("Too many requests, retry in " + retryAfter + "s")
+                .build());
+    }
+
+    private String client(HttpServletRequest request) {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal user) {
+            return "user:" + user.getId();
+        }
+        // behind a proxy this is the forwarded client address once server.forward-headers-strategy is set
+        return "ip:" + request.getRemoteAddr();
+    }
+}
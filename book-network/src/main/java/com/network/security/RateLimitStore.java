@@ -0,0 +1,16 @@
+package com.network.security;
+
+/**
+ * Holds the token buckets. The in-memory store limits each node on its own; a deployment of several nodes
+ * that needs one limit across all of them registers a shared store, e.g. backed by Redis, as a
+ * {@code @Primary} bean.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from the bucket of the given key.
+     *
+     * @return 0 if the request may proceed, otherwise how many nanoseconds until a token is available
+     */
+    long tryConsume(String key, RateLimit limit);
+}
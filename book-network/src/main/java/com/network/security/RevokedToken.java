@@ -0,0 +1,33 @@
+package com.network.security;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A JWT revoked before its expiry, by token id. The row is only needed until the token would have expired anyway.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revokedAt")
+})
+public class RevokedToken {
+
+    @Id
+    private String tokenId;
+    private Integer userId;
+    private LocalDateTime revokedAt;
+    private LocalDateTime expiresAt;
+}
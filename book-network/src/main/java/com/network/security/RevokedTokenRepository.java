@@ -0,0 +1,58 @@
+package com.network.security;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // revoking the same token twice, e.g. a repeated logout, is not an error
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revoked_token"))
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO revoked_token (token_id, user_id, revoked_at, expires_at)
+            VALUES (:tokenId, :userId, :revokedAt, :expiresAt)
+            ON CONFLICT (token_id) DO NOTHING
+            """, nativeQuery = true)
+    int revoke(
+            @Param("tokenId") String tokenId,
+            @Param("userId") Integer userId,
+            @Param("revokedAt") LocalDateTime revokedAt,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    long countByExpiresAtAfter(LocalDateTime now);
+
+    @Query("""
+            SELECT token.tokenId
+            FROM RevokedToken token
+            WHERE token.expiresAt > :now
+            """)
+    Stream<String> streamLiveTokenIds(@Param("now") LocalDateTime now);
+
+    @Query("""
+            SELECT token.tokenId
+            FROM RevokedToken token
+            WHERE token.revokedAt >= :since
+            AND token.expiresAt > :now
+            """)
+    List<String> findLiveTokenIdsRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            DELETE FROM RevokedToken token
+            WHERE token.expiresAt <= :now
+            """)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
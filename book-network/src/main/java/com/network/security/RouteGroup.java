@@ -0,0 +1,24 @@
+package com.network.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Requests that share a rate limit.
+ */
+public enum RouteGroup {
+
+    AUTH,
+    READS,
+    WRITES;
+
+    public static RouteGroup of(HttpServletRequest request) {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/auth/")) {
+            return AUTH;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> READS;
+            default -> WRITES;
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.network.security;
+
+import com.network.common.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Answers whether a token was revoked without a query per request. Every live revocation is kept in a
+ * Bloom filter; only a filter hit, a revoked token or the rare false positive, is confirmed against the
+ * revoked_token table. Revocations made on this instance enter the filter at once, those made on other
+ * instances within one refresh interval.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.security.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+    @Value("${application.security.revocation.minimum-capacity:10000}")
+    private long minimumCapacity;
+    // revocations committed late by another instance are still picked up by the next refresh
+    @Value("${application.security.revocation.refresh-overlap:PT1M}")
+    private Duration refreshOverlap;
+
+    private volatile BloomFilter revokedTokenIds;
+    private volatile LocalDateTime refreshedAt;
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revokedTokenIds.mightContain(tokenId) && revokedTokenRepository.existsById(tokenId);
+    }
+
+    public void revoke(JwtClaims claims) {
+        revokedTokenRepository.revoke(
+                claims.tokenId(),
+                claims.userId(),
+                LocalDateTime.now(),
+                LocalDateTime.ofInstant(claims.expiration(), ZoneId.systemDefault())
+        );
+        revokedTokenIds.put(claims.tokenId());
+    }
+
+    @Scheduled(
+            initialDelayString = "${application.security.revocation.refresh-interval:PT10S}",
+            fixedDelayString = "${application.security.revocation.refresh-interval:PT10S}"
+    )
+    public synchronized void refresh() {
+        var now = LocalDateTime.now();
+        var tokenIds = revokedTokenRepository.findLiveTokenIdsRevokedSince(refreshedAt.minus(refreshOverlap), now);
+        var filter = revokedTokenIds;
+        tokenIds.forEach(filter::put);
+        refreshedAt = now;
+        // past its capacity the filter degrades into a query per request, size it again
+        if (revokedTokenRepository.countByExpiresAtAfter(now) > filter.expectedInsertions()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Deletes revocations of tokens that have expired by now and drops them from the filter.
+     */
+    @Scheduled(
+            initialDelayString = "${application.security.revocation.prune-interval:PT1H}",
+            fixedDelayString = "${application.security.revocation.prune-interval:PT1H}"
+    )
+    public void prune() {
+        var pruned = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (pruned > 0) {
+            rebuild();
+            log.info("Pruned {} expired token revocations", pruned);
+        }
+    }
+
+    private synchronized void rebuild() {
+        var now = LocalDateTime.now();
+        var live = revokedTokenRepository.countByExpiresAtAfter(now);
+        // twice the live count leaves room for revocations until the next rebuild
+        var filter = new BloomFilter(Math.max(minimumCapacity, live * 2), falsePositiveRate);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var tokenIds = revokedTokenRepository.streamLiveTokenIds(now)) {
+                tokenIds.forEach(filter::put);
+            }
+        });
+        revokedTokenIds = filter;
+        refreshedAt = now;
+        // a revocation put into the previous filter while this one was being filled is in the table by now
+        revokedTokenRepository.findLiveTokenIdsRevokedSince(now.minus(refreshOverlap), LocalDateTime.now())
+                .forEach(filter::put);
+        log.info("Token revocation filter rebuilt with {} live revocations", live);
+    }
+}
@@ -0,0 +1,45 @@
+package com.network.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.network.user.UserRepository;
+import com.network.user.UserStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Whether a token's user may still act, re-read at most once per TTL. A locked or disabled account
+ * keeps working with an existing token for at most that long.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${application.security.user-status.ttl:PT30S}")
+    private Duration ttl;
+    @Value("${application.security.user-status.maximum-size:10000}")
+    private long maximumSize;
+
+    private LoadingCache<Integer, Optional<UserStatus>> statuses;
+
+    @PostConstruct
+    void init() {
+        statuses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build(userRepository::findStatusById);
+    }
+
+    public boolean isActive(Integer userId) {
+        return statuses.get(userId)
+                .map(UserStatus::isActive)
+                .orElse(false);
+    }
+}
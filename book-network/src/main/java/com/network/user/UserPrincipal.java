@@ -0,0 +1,30 @@
+package com.network.user;
+
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The authenticated user of a request, built from the claims of its token without loading the user.
+ * Code that needs the entity asks for a reference by {@link #getId()}.
+ */
+@Value
+public class UserPrincipal implements Principal {
+
+    Integer id;
+    String email;
+    String fullName;
+    Collection<? extends GrantedAuthority> authorities;
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getFullName(), List.copyOf(user.getAuthorities()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,10 +1,29 @@
 package com.network.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findByEmail(String email);
+
+    @Query("""
+            SELECT new com.network.user.UserStatus(user.enabled, user.accountLocked)
+            FROM User user
+            WHERE user.id = :id
+            """)
+    Optional<UserStatus> findStatusById(@Param("id") Integer id);
+
+    @Query("""
+            SELECT user.id
+            FROM User user
+            WHERE user.id > :lastId
+            ORDER BY user.id
+            """)
+    List<Integer> findIdsAfter(@Param("lastId") Integer lastId, Pageable pageable);
 }
@@ -0,0 +1,11 @@
+package com.network.user;
+
+public record UserStatus(
+        boolean enabled,
+        boolean accountLocked
+) {
+
+    public boolean isActive() {
+        return enabled && !accountLocked;
+    }
+}
@@ -0,0 +1,103 @@
+package com.network;
+
+import com.network.book.Book;
+import com.network.book.BookRepository;
+import com.network.user.User;
+import com.network.user.UserPrincipal;
+import com.network.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Users and books for the integration tests. Tests that commit call {@link #cleanUp()} after each test, which
+ * deletes what was created here along with the loans, feedbacks, counters and mails that refer to it.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestFixture {
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final List<Integer> userIds = new ArrayList<>();
+    private final List<Integer> bookIds = new ArrayList<>();
+
+    public User newUser() {
+        var user = userRepository.save(User.builder()
+                .firstname("first")
+                .lastname("last")
+                .email(UUID.randomUUID() + "@mail.com")
+                .password("password")
+                .enabled(true)
+                .roles(List.of())
+                .build());
+        userIds.add(user.getId());
+        return user;
+    }
+
+    public Authentication login(User user) {
+        var authentication = new UsernamePasswordAuthenticationToken(UserPrincipal.from(user), null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
+    }
+
+    /**
+     * A shareable book, saved as its owner, who stays logged in.
+     */
+    public Book newBook(User owner) {
+        return newBook(owner, book -> {
+        });
+    }
+
+    public Book newBook(User owner, Consumer<Book.BookBuilder<?, ?>> customizer) {
+        login(owner);
+        var builder = Book.builder()
+                .title("title")
+                .authorName("author")
+                .isbn("isbn")
+                .synopsis("synopsis")
+                .shareable(true)
+                .owner(owner);
+        customizer.accept(builder);
+        return track(bookRepository.save(builder.build()));
+    }
+
+    /**
+     * Registers a book created by the code under test, so {@link #cleanUp()} deletes it too.
+     */
+    public Book track(Book book) {
+        bookIds.add(book.getId());
+        return book;
+    }
+
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+        var ids = Map.of("bookIds", bookIds.isEmpty() ? List.of(-1) : bookIds, "userIds", userIds.isEmpty() ? List.of(-1) : userIds);
+        for (var statement : List.of(
+                "DELETE FROM feedback WHERE book_id IN (:bookIds) OR created_by IN (:userIds)",
+                "DELETE FROM book_transaction_history WHERE book_id IN (:bookIds) OR user_id IN (:userIds)",
+                "DELETE FROM book_transaction_history_archive WHERE book_id IN (:bookIds) OR user_id IN (:userIds)",
+                "DELETE FROM book WHERE id IN (:bookIds) OR owner_id IN (:userIds)",
+                "DELETE FROM user_dashboard WHERE user_id IN (:userIds)",
+                "DELETE FROM token WHERE user_id IN (:userIds)",
+                "DELETE FROM revoked_token WHERE user_id IN (:userIds)",
+                "DELETE FROM email_outbox WHERE recipient IN (SELECT email FROM _user_ WHERE id IN (:userIds))",
+                "DELETE FROM _user_ WHERE id IN (:userIds)"
+        )) {
+            jdbcTemplate.update(statement, ids);
+        }
+        bookIds.clear();
+        userIds.clear();
+    }
+}
@@ -0,0 +1,192 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.exception.OperationNotPermittedException;
+import com.network.user.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every borrower races for every book at once; each book must end up lent exactly once.
+ * Not transactional on purpose: the engine has to hold up across real, concurrently committing transactions.
+ * The striped lock serializes the borrows of one node, so a second test lends the book as another node would.
+ */
+@SpringBootTest
+@Slf4j
+class BookBorrowConcurrencyTest {
+
+    private static final int BOOKS = 20;
+    private static final int BORROWERS = 16;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TestFixture fixture;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Integer> bookIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // the transactions were committed, so the rows this run created are deleted by hand
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldLendEachBookOnceUnderContention() throws Exception {
+        var owner = fixture.newUser();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(fixture.newBook(owner).getId());
+        }
+        var borrowers = new ArrayList<Authentication>();
+        for (int i = 0; i < BORROWERS; i++) {
+            borrowers.add(fixture.login(fixture.newUser()));
+        }
+
+        var loans = new AtomicIntegerArray(BOOKS);
+        var rejected = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(BORROWERS);
+        try {
+            var attempts = new ArrayList<Future<?>>();
+            for (var borrower : borrowers) {
+                var order = new ArrayList<Integer>();
+                for (int i = 0; i < BOOKS; i++) {
+                    order.add(i);
+                }
+                Collections.shuffle(order);
+                attempts.add(executor.submit((Callable<Void>) () -> {
+                    SecurityContextHolder.getContext().setAuthentication(borrower);
+                    start.await();
+                    for (var index : order) {
+                        try {
+                            bookService.borrowBooks(bookIds.get(index), borrower);
+                            loans.incrementAndGet(index);
+                        } catch (OperationNotPermittedException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            var startedAt = System.nanoTime();
+            start.countDown();
+            for (var attempt : attempts) {
+                attempt.get();
+            }
+            var seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+            log.info("{} borrow attempts in {}s: {} borrows/sec ({} lent, {} rejected)", BOOKS * BORROWERS,
+                    "%.2f".formatted(seconds), "%.0f".formatted(BOOKS * BORROWERS / seconds), BOOKS, rejected.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < BOOKS; i++) {
+            assertEquals(1, loans.get(i), "book " + bookIds.get(i) + " lent more than once");
+            assertEquals(LoanState.BORROWED, bookRepository.findById(bookIds.get(i)).orElseThrow().getLoanState());
+        }
+        assertEquals(BOOKS * (BORROWERS - 1), rejected.get());
+        var openLoans = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM book_transaction_history
+                WHERE returned_approved = false
+                AND book_id IN (%s)
+                """.formatted(in(bookIds)), Long.class);
+        assertEquals(BOOKS, openLoans);
+    }
+
+    @Test
+    void shouldWaitForTheRowLockOfALoanOpenedElsewhere() throws Exception {
+        var book = fixture.newBook(fixture.newUser());
+        bookIds.add(book.getId());
+        var first = fixture.login(fixture.newUser());
+        var second = fixture.login(fixture.newUser());
+
+        var lent = new CountDownLatch(1);
+        var commit = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            // the loan joins this transaction, its striped lock is released long before the row lock
+            var other = executor.submit(() -> transactionTemplate.execute(status -> {
+                SecurityContextHolder.getContext().setAuthentication(first);
+                bookRepository.findByIdForUpdate(book.getId()).orElseThrow();
+                bookService.borrowBooks(book.getId(), first);
+                lent.countDown();
+                try {
+                    commit.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertTrue(lent.await(30, TimeUnit.SECONDS));
+            var racing = executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(second);
+                return bookService.borrowBooks(book.getId(), second);
+            });
+            awaitLockWait();
+            commit.countDown();
+            other.get(30, TimeUnit.SECONDS);
+
+            var e = assertThrows(ExecutionException.class, () -> racing.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(OperationNotPermittedException.class, e.getCause());
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+
+        var loanedBook = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(LoanState.BORROWED, loanedBook.getLoanState());
+        assertEquals(((UserPrincipal) first.getPrincipal()).getId(), loanedBook.getLoanBorrowerId());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM book_transaction_history WHERE book_id = ?", Long.class, book.getId()));
+    }
+
+    /**
+     * Waits until a session is blocked on a lock, the racing borrow on the row of the open loan.
+     */
+    private void awaitLockWait() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            var waiting = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Long.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static String in(Collection<Integer> ids) {
+        return String.join(",", ids.stream().map(String::valueOf).toList());
+    }
+}
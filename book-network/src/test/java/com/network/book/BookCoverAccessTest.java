@@ -0,0 +1,85 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Covers are readable without a token, but only through the versioned URL a book response hands out.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookCoverAccessTest {
+
+    private static final byte[] COVER = {1, 2, 3};
+
+    private static Path uploadRoot;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixture fixture;
+
+    private String hash;
+    private Book book;
+
+    @DynamicPropertySource
+    static void uploadRoot(DynamicPropertyRegistry registry) throws IOException {
+        uploadRoot = Files.createTempDirectory("cover-access-");
+        registry.add("application.file.upload.photos-output-path", uploadRoot::toString);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hash = UUID.randomUUID().toString().replace("-", "");
+        var key = "covers/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png";
+        Files.createDirectories(uploadRoot.resolve(key).getParent());
+        Files.write(uploadRoot.resolve(key), COVER);
+        book = fixture.newBook(fixture.newUser(), builder -> builder.shareable(false).bookCover(key));
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fixture.cleanUp();
+        FileSystemUtils.deleteRecursively(uploadRoot.resolve("covers"));
+    }
+
+    @Test
+    void shouldServeTheCoverForItsVersion() throws Exception {
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1").param("v", hash))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(COVER));
+        // the thumbnail URL carries the original's version until the thumbnail is rendered
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1")
+                        .param("size", "THUMBNAIL")
+                        .param("v", hash))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldNotServeTheCoverWithoutItsVersion() throws Exception {
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1").param("v", "guess"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,104 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Imports through the JDBC batch insert and reads the rows back; the rows commit, the fixture deletes them.
+ */
+@SpringBootTest
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService importService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixture fixture;
+
+    private User owner;
+    private Authentication connectedUser;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixture.newUser();
+        connectedUser = fixture.login(owner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldImportCsvRowsWithTheirLoanPeriod() throws IOException {
+        var csv = """
+                title,authorName,isbn,synopsis,shareable,loanPeriodDays
+                "Dune, part one",Herbert,isbn-1,"a ""desert"" planet",true,21
+                Emma,Austen,isbn-2,synopsis,false,
+                Ulysses,Joyce,isbn-3,synopsis,true,three
+                Walden,Thoreau,isbn-4,synopsis,true,-1
+                """;
+
+        var response = importService.importBooks(stream(csv), BookImportService.TEXT_CSV, connectedUser);
+
+        assertEquals(2, response.getImported());
+        assertEquals(2, response.getRejected());
+        assertEquals(Set.of("Malformed loanPeriodDays: three"), response.getErrors().get(0).getErrors());
+        assertEquals(3, response.getErrors().get(0).getRow());
+        assertEquals(Set.of("104"), response.getErrors().get(1).getErrors());
+        var books = importedBooks();
+        assertEquals(21, books.get("Dune, part one").get("loan_period_days"));
+        assertEquals("a \"desert\" planet", books.get("Dune, part one").get("synopsis"));
+        assertEquals(true, books.get("Dune, part one").get("shareable"));
+        assertNull(books.get("Emma").get("loan_period_days"));
+        assertEquals(false, books.get("Emma").get("shareable"));
+    }
+
+    @Test
+    void shouldImportNdjsonRowsWithTheirLoanPeriod() throws IOException {
+        var ndjson = """
+                {"title":"Dune","authorName":"Herbert","isbn":"isbn-1","synopsis":"synopsis","shareable":true,"loanPeriodDays":7}
+                {"title":"Emma","authorName":"Austen","isbn":"isbn-2","synopsis":"synopsis","shareable":true}
+
+                {"title":"Ulysses",
+                """;
+
+        var response = importService.importBooks(stream(ndjson), BookImportService.APPLICATION_NDJSON, connectedUser);
+
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getRejected());
+        assertEquals(4, response.getErrors().get(0).getRow());
+        var books = importedBooks();
+        assertEquals(7, books.get("Dune").get("loan_period_days"));
+        assertNull(books.get("Emma").get("loan_period_days"));
+    }
+
+    private Map<String, Map<String, Object>> importedBooks() {
+        var books = new HashMap<String, Map<String, Object>>();
+        jdbcTemplate.queryForList("SELECT title, synopsis, shareable, loan_period_days FROM book WHERE owner_id = ?", owner.getId())
+                .forEach(book -> books.put((String) book.get("title"), book));
+        return books;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+}
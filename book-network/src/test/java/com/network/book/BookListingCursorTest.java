@@ -0,0 +1,117 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.common.Cursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listings are newest first, as they were before cursors; a cursor continues exactly where the previous page ended.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class BookListingCursorTest {
+
+    private static final int BOOKS = 5;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixture fixture;
+
+    private Authentication owner;
+    // newest first
+    private final List<Integer> bookIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var user = fixture.newUser();
+        var createdDate = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(0, fixture.newBook(user).getId());
+        }
+        owner = fixture.login(user);
+        // the two oldest books share their creation date, the id breaks the tie
+        for (int i = 0; i < BOOKS; i++) {
+            jdbcTemplate.update("UPDATE book SET created_date = ? WHERE id = ?",
+                    Timestamp.valueOf(createdDate.minusHours(Math.min(i, BOOKS - 2))), bookIds.get(i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldListNewestFirst() {
+        var page = bookService.findAllBooksByOwner(0, BOOKS, null, owner);
+
+        assertEquals(bookIds, page.getContent().stream().map(BookResponse::getId).toList());
+    }
+
+    @Test
+    void shouldWalkTheCursorsInTheOffsetOrder() {
+        var page = bookService.findAllBooksByOwner(0, 2, null, owner);
+        var listed = new ArrayList<>(page.getContent().stream().map(BookResponse::getId).toList());
+        while (page.getNextCursor() != null) {
+            page = bookService.findAllBooksByOwner(0, 2, page.getNextCursor(), owner);
+            page.getContent().forEach(book -> listed.add(book.getId()));
+        }
+
+        assertEquals(bookIds, listed);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectMalformedAndTamperedCursors() throws Exception {
+        var tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-01-01T00:00|1 OR 1=1".getBytes(StandardCharsets.UTF_8));
+        var truncated = new Cursor(LocalDateTime.now(), 1).encode().substring(0, 10);
+        for (var cursor : List.of("not a cursor", tampered, truncated)) {
+            mockMvc.perform(get("/api/v1/books/owner").contextPath("/api/v1")
+                            .param("cursor", cursor)
+                            .with(authentication(owner)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void shouldRejectAnEmptyPageSize() throws Exception {
+        mockMvc.perform(get("/api/v1/books/owner").contextPath("/api/v1")
+                        .param("size", "0")
+                        .with(authentication(owner)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/books/owner").contextPath("/api/v1")
+                        .param("size", "0")
+                        .param("cursor", new Cursor(LocalDateTime.now(), Integer.MAX_VALUE).encode())
+                        .with(authentication(owner)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,91 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.common.Cursor;
+import com.network.common.PageResponse;
+import com.network.history.BookTransactionHistory;
+import com.network.history.BookTransactionHistoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BookListingStatementCountTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookTransactionHistoryRepository historyRepository;
+    @Autowired
+    private TestFixture fixture;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Authentication owner;
+    private Authentication borrower;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var ownerUser = fixture.newUser();
+        owner = fixture.login(ownerUser);
+        var books = new ArrayList<Book>();
+        for (int i = 0; i < PAGE_SIZE + 2; i++) {
+            books.add(fixture.newBook(ownerUser, book -> book.shareable(false)));
+        }
+        var borrowerUser = fixture.newUser();
+        borrower = fixture.login(borrowerUser);
+        books.forEach(book -> historyRepository.save(BookTransactionHistory.builder()
+                .user(borrowerUser)
+                .book(book)
+                .build()));
+        historyRepository.flush();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldListEachOffsetPageWithOneSelectAndOneCount() {
+        assertStatementCount(2, () -> bookService.findAllBooks(0, PAGE_SIZE, null, borrower));
+        assertStatementCount(2, () -> bookService.findAllBooksByOwner(0, PAGE_SIZE, null, owner));
+        assertStatementCount(2, () -> bookService.findAllBorrowedBooksByOwner(0, PAGE_SIZE, null, borrower));
+        assertStatementCount(2, () -> bookService.findAllReturnedBooks(0, PAGE_SIZE, null, owner));
+    }
+
+    @Test
+    void shouldListEachCursorSliceWithOneSelect() {
+        var cursor = new Cursor(LocalDateTime.now().plusDays(1), Integer.MAX_VALUE).encode();
+        assertStatementCount(1, () -> bookService.findAllBooks(0, PAGE_SIZE, cursor, borrower));
+        assertStatementCount(1, () -> bookService.findAllBooksByOwner(0, PAGE_SIZE, cursor, owner));
+        assertStatementCount(1, () -> bookService.findAllBorrowedBooksByOwner(0, PAGE_SIZE, cursor, borrower));
+        assertStatementCount(1, () -> bookService.findAllReturnedBooks(0, PAGE_SIZE, cursor, owner));
+    }
+
+    private void assertStatementCount(long expected, Supplier<PageResponse<?>> listing) {
+        statistics.clear();
+        var page = listing.get();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        assertEquals(PAGE_SIZE, page.getContent().size());
+    }
+}
@@ -0,0 +1,120 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.exception.OperationNotPermittedException;
+import com.network.history.BookTransactionHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A loan goes BORROWED, RETURNED, APPROVED, each step taken by the right user only.
+ */
+@SpringBootTest
+class BookLoanLifecycleTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository historyRepository;
+    @Autowired
+    private TestFixture fixture;
+
+    private Book book;
+    private Authentication owner;
+    private Authentication borrower;
+    private Authentication stranger;
+
+    @BeforeEach
+    void setUp() {
+        var ownerUser = fixture.newUser();
+        book = fixture.newBook(ownerUser);
+        owner = fixture.login(ownerUser);
+        borrower = fixture.login(fixture.newUser());
+        stranger = fixture.login(fixture.newUser());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldBorrowReturnAndApprove() {
+        var loanId = bookService.borrowBooks(book.getId(), borrower);
+        assertEquals(LoanState.BORROWED, loanState());
+        assertFalse(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+
+        assertEquals(loanId, bookService.returnedBorrowBooks(book.getId(), borrower));
+        assertEquals(LoanState.RETURNED, loanState());
+        assertTrue(historyRepository.findById(loanId).orElseThrow().isReturned());
+
+        assertEquals(loanId, bookService.approveReturnBooks(book.getId(), owner));
+        assertEquals(LoanState.APPROVED, loanState());
+        assertTrue(historyRepository.findById(loanId).orElseThrow().isReturnedApproved());
+        assertTrue(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+
+        // an approved loan is closed, the book can be lent again
+        bookService.borrowBooks(book.getId(), stranger);
+        assertEquals(LoanState.BORROWED, loanState());
+    }
+
+    @Test
+    void shouldRejectStepsOutOfOrder() {
+        assertRejected(() -> bookService.returnedBorrowBooks(book.getId(), borrower));
+        assertRejected(() -> bookService.approveReturnBooks(book.getId(), owner));
+        assertNull(loanState());
+
+        bookService.borrowBooks(book.getId(), borrower);
+        assertRejected(() -> bookService.borrowBooks(book.getId(), stranger));
+        assertRejected(() -> bookService.borrowBooks(book.getId(), borrower));
+        assertRejected(() -> bookService.returnedBorrowBooks(book.getId(), stranger));
+        assertRejected(() -> bookService.approveReturnBooks(book.getId(), owner));
+        assertEquals(LoanState.BORROWED, loanState());
+
+        bookService.returnedBorrowBooks(book.getId(), borrower);
+        // awaiting approval still blocks the book
+        assertRejected(() -> bookService.borrowBooks(book.getId(), stranger));
+        assertRejected(() -> bookService.returnedBorrowBooks(book.getId(), borrower));
+        assertEquals(LoanState.RETURNED, loanState());
+    }
+
+    @Test
+    void shouldLetOnlyTheOwnerApproveTheReturn() {
+        bookService.borrowBooks(book.getId(), borrower);
+        bookService.returnedBorrowBooks(book.getId(), borrower);
+
+        assertRejected(() -> bookService.approveReturnBooks(book.getId(), borrower));
+        assertRejected(() -> bookService.approveReturnBooks(book.getId(), stranger));
+        assertEquals(LoanState.RETURNED, loanState());
+
+        bookService.approveReturnBooks(book.getId(), owner);
+        assertEquals(LoanState.APPROVED, loanState());
+    }
+
+    @Test
+    void shouldNotLendTheOwnerTheirOwnBook() {
+        assertRejected(() -> bookService.borrowBooks(book.getId(), owner));
+        assertNull(loanState());
+    }
+
+    private LoanState loanState() {
+        return bookRepository.findById(book.getId()).orElseThrow().getLoanState();
+    }
+
+    private static void assertRejected(Executable step) {
+        assertThrows(OperationNotPermittedException.class, step);
+    }
+}
@@ -0,0 +1,119 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.feedback.FeedbackRequest;
+import com.network.feedback.FeedbackService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The rating totals kept on the book must always match its feedbacks, which the reconciler recomputes them from.
+ */
+@SpringBootTest
+class BookRatingAggregateTest {
+
+    @Autowired
+    private FeedbackService feedbackService;
+    @Autowired
+    private BookRatingReconciler reconciler;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixture fixture;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = fixture.newBook(fixture.newUser());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldCountEachRating() {
+        rate(4.0);
+        rate(2.5);
+        // feedback without a note leaves the rating alone
+        rate(null);
+
+        var rated = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(2, rated.getRatingCount());
+        assertEquals(6.5, rated.getRatingSum());
+        assertEquals(3.3, rated.getRate());
+        assertEquals(1, rated.getFourStarCount());
+        assertEquals(1, rated.getThreeStarCount());
+    }
+
+    @Test
+    void shouldNotLoseConcurrentRatings() throws Exception {
+        var readers = new ArrayList<Authentication>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(fixture.login(fixture.newUser()));
+        }
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(readers.size());
+        try {
+            var ratings = new ArrayList<Future<?>>();
+            for (var reader : readers) {
+                ratings.add(executor.submit((Callable<Void>) () -> {
+                    SecurityContextHolder.getContext().setAuthentication(reader);
+                    start.await();
+                    feedbackService.save(new FeedbackRequest(5.0, "comment", book.getId()), reader);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var rating : ratings) {
+                rating.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var rated = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(readers.size(), rated.getRatingCount());
+        assertEquals(readers.size(), rated.getFiveStarCount());
+        assertEquals(5.0, rated.getRate());
+    }
+
+    @Test
+    void shouldRepairDriftFromTheFeedbacks() {
+        rate(1.0);
+        rate(5.0);
+        jdbcTemplate.update("UPDATE book SET rating_sum = 99, rating_count = 42, five_star_count = 0 WHERE id = ?", book.getId());
+
+        reconciler.reconcile();
+
+        var repaired = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(2, repaired.getRatingCount());
+        assertEquals(6.0, repaired.getRatingSum());
+        assertEquals(1, repaired.getOneStarCount());
+        assertEquals(1, repaired.getFiveStarCount());
+    }
+
+    private void rate(Double note) {
+        var reader = fixture.login(fixture.newUser());
+        feedbackService.save(new FeedbackRequest(note, "comment", book.getId()), reader);
+    }
+}
@@ -0,0 +1,71 @@
+package com.network.book;
+
+import com.network.TestFixture;
+import com.network.feedback.FeedbackRequest;
+import com.network.feedback.FeedbackService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes to one book must not evict the other books from the second level cache.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookSecondLevelCacheTest {
+
+    @Autowired
+    private FeedbackService feedbackService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TestFixture fixture;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Book rated;
+    private Book other;
+    private Authentication reader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var owner = fixture.newUser();
+        rated = fixture.newBook(owner);
+        other = fixture.newBook(owner);
+        reader = fixture.login(fixture.newUser());
+        // outside a transaction every lookup runs in its own session, so a second lookup can only come from the cache
+        bookRepository.findById(rated.getId());
+        bookRepository.findById(other.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldKeepCachedBooksAcrossAFeedbackWrite() {
+        statistics.clear();
+        bookRepository.findById(other.getId());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+
+        feedbackService.save(new FeedbackRequest(4.0, "comment", rated.getId()), reader);
+
+        statistics.clear();
+        bookRepository.findById(other.getId());
+        var updated = bookRepository.findById(rated.getId()).orElseThrow();
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+        assertEquals(1, updated.getRatingCount());
+        assertEquals(1, updated.getFourStarCount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.network.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A key that was put is always found; an absent key only at about the chosen false positive rate.
+ */
+class BloomFilterTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void shouldFindEveryKeyThatWasPut() {
+        var filter = new BloomFilter(KEYS, 0.001);
+        var keys = IntStream.range(0, KEYS).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        keys.forEach(filter::put);
+
+        keys.forEach(key -> assertTrue(filter.mightContain(key), key));
+    }
+
+    @Test
+    void shouldStayNearTheFalsePositiveRate() {
+        var filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        var falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("absent-" + i))
+                .count();
+
+        // 1% of 100000 expected, twice that leaves room for the hash
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+    }
+
+    @Test
+    void shouldNotLoseConcurrentPuts() throws Exception {
+        var filter = new BloomFilter(KEYS, 0.001);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var puts = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 8; thread++) {
+                var prefix = thread + "-";
+                puts.add(executor.submit((Callable<Void>) () -> {
+                    for (int i = 0; i < KEYS / 8; i++) {
+                        filter.put(prefix + i);
+                    }
+                    return null;
+                }));
+            }
+            for (var put : puts) {
+                put.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int thread = 0; thread < 8; thread++) {
+            for (int i = 0; i < KEYS / 8; i++) {
+                assertTrue(filter.mightContain(thread + "-" + i));
+            }
+        }
+    }
+}
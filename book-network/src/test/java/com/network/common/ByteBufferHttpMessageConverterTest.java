@@ -0,0 +1,57 @@
+package com.network.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The body is exactly the remaining bytes of the buffer, whatever its kind, and the buffer is left as it was.
+ */
+class ByteBufferHttpMessageConverterTest {
+
+    private final ByteBufferHttpMessageConverter converter = new ByteBufferHttpMessageConverter();
+
+    @Test
+    void shouldWriteADirectBufferLargerThanTheTransferChunk() throws IOException {
+        var content = content(40 * 1024 + 7);
+        var buffer = ByteBuffer.allocateDirect(content.length).put(content).flip().asReadOnlyBuffer();
+
+        var body = write(buffer);
+
+        assertArrayEquals(content, body.getBodyAsBytes());
+        assertEquals(content.length, body.getHeaders().getContentLength());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void shouldWriteOnlyTheRemainingBytesOfAHeapSlice() throws IOException {
+        var content = content(100);
+        var buffer = ByteBuffer.wrap(content).position(10).slice().limit(50).position(5);
+
+        var body = write(buffer);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 15, 60), body.getBodyAsBytes());
+        assertEquals(45, body.getHeaders().getContentLength());
+        assertEquals(5, buffer.position());
+    }
+
+    private MockHttpOutputMessage write(ByteBuffer buffer) throws IOException {
+        var message = new MockHttpOutputMessage();
+        converter.write(buffer, MediaType.IMAGE_PNG, message);
+        return message;
+    }
+
+    private static byte[] content(int length) {
+        var content = new byte[length];
+        new Random(1).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,46 @@
+package com.network.dashboard;
+
+import com.network.TestFixture;
+import com.network.book.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * A user's first counted change recounts the dashboard from the books, which must include the change itself.
+ */
+@SpringBootTest
+class UserDashboardServiceTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserDashboardService dashboardService;
+    @Autowired
+    private UserDashboardRepository dashboardRepository;
+    @Autowired
+    private TestFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldCountTheShareableToggleThatCreatesTheDashboard() {
+        var owner = fixture.newUser();
+        var book = fixture.newBook(owner);
+        var connectedUser = fixture.login(owner);
+        assertFalse(dashboardRepository.existsById(owner.getId()));
+
+        bookService.updateShareAbleStatus(book.getId(), connectedUser);
+
+        var dashboard = dashboardService.findDashboard(connectedUser);
+        assertEquals(1, dashboard.getOwnedBooks());
+        assertEquals(0, dashboard.getShareableBooks());
+    }
+}
@@ -0,0 +1,108 @@
+package com.network.email;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Delivers the outbox to an in-process SMTP server. The scheduled poll is off in tests,
+ * {@link EmailOutboxWorker#drain()} is called directly.
+ */
+@SpringBootTest(properties = {
+        "spring.mail.port=3025",
+        "application.mailing.outbox.batch-size=4"
+})
+class EmailOutboxWorkerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("admin", "admin123"));
+
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private EmailOutboxWorker worker;
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Test
+    void shouldDeliverEveryQueuedMailInBatches() throws Exception {
+        var recipients = List.of(recipient(), recipient(), recipient(), recipient(), recipient(), recipient());
+        recipients.forEach(this::enqueue);
+
+        worker.drain();
+
+        assertEquals(recipients.size(), received(recipients).size());
+        for (var recipient : recipients) {
+            var email = find(recipient);
+            assertEquals(OutboxEmailStatus.SENT, email.getStatus());
+            assertEquals(1, email.getAttempts());
+            assertNotNull(email.getSentAt());
+        }
+    }
+
+    @Test
+    void shouldRetryWithBackoffWhenSmtpIsDown() throws Exception {
+        var recipient = recipient();
+        greenMail.stop();
+        enqueue(recipient);
+
+        worker.drain();
+
+        var failed = find(recipient);
+        assertEquals(OutboxEmailStatus.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertNotNull(failed.getLastError());
+        assertTrue(failed.getNextAttemptAt().isAfter(failed.getCreatedAt()));
+
+        greenMail.start();
+        failed.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(failed);
+        worker.drain();
+
+        assertEquals(1, received(List.of(recipient)).size());
+        assertEquals(OutboxEmailStatus.SENT, find(recipient).getStatus());
+        assertEquals(2, find(recipient).getAttempts());
+    }
+
+    private void enqueue(String recipient) {
+        emailService.sendEmail(recipient, "user", EmailTemplateName.ACTIVATE_ACCOUNT, "http://localhost", "123456", "Account Activation");
+    }
+
+    private OutboxEmail find(String recipient) {
+        return outboxRepository.findAll().stream()
+                .filter(email -> email.getRecipient().equals(recipient))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<MimeMessage> received(List<String> recipients) {
+        return Arrays.stream(greenMail.getReceivedMessages())
+                .filter(message -> {
+                    try {
+                        return recipients.contains(message.getAllRecipients()[0].toString());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private static String recipient() {
+        return UUID.randomUUID() + "@mail.com";
+    }
+}
@@ -0,0 +1,111 @@
+package com.network.email;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-mail render cost over a run of 10k recipients: the Thymeleaf engine with its parsed-template cache, as
+ * before, against the precompiled {@link EmailTemplateRenderer}, for the activation mail and a three-row
+ * overdue digest.
+ * <p>
+ * Run with {@code mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.network.email.EmailTemplateRendererBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateRendererBenchmark {
+
+    private static final int RECIPIENTS = 10_000;
+
+    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer renderer;
+    private List<Map<String, Object>> activations;
+    private List<Map<String, Object>> digests;
+
+    @Setup
+    public void setUp() {
+        var resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        renderer = new EmailTemplateRenderer(templateEngine);
+        renderer.init();
+        activations = new ArrayList<>();
+        digests = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            activations.add(Map.of(
+                    "username", "User " + i,
+                    "confirmationUrl", "http://localhost:4200/activate-account",
+                    "activation_code", String.valueOf(100_000 + i)
+            ));
+            var loans = new ArrayList<Map<String, Object>>();
+            for (int j = 0; j < 3; j++) {
+                loans.add(Map.of("title", "Book " + i + "-" + j, "authorName", "Author " + j, "dueDate", "2026-01-0" + (j + 1)));
+            }
+            digests.add(Map.of("username", "User " + i, "loans", loans));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public long activationWithEngine() {
+        return renderAll(EmailTemplateName.ACTIVATE_ACCOUNT, activations, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public long activationPrecompiled() {
+        return renderAll(EmailTemplateName.ACTIVATE_ACCOUNT, activations, false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public long digestWithEngine() {
+        return renderAll(EmailTemplateName.OVERDUE_LOANS, digests, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public long digestPrecompiled() {
+        return renderAll(EmailTemplateName.OVERDUE_LOANS, digests, false);
+    }
+
+    private long renderAll(EmailTemplateName template, List<Map<String, Object>> recipients, boolean engine) {
+        long length = 0;
+        for (var variables : recipients) {
+            length += (engine ? process(template, variables) : renderer.render(template, variables)).length();
+        }
+        return length;
+    }
+
+    private String process(EmailTemplateName template, Map<String, Object> variables) {
+        var context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template.getName(), context);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateRendererBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
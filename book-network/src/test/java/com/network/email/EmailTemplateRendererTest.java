@@ -0,0 +1,123 @@
+package com.network.email;
+
+import com.network.history.OverdueLoan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The precompiled templates must render byte for byte what the Thymeleaf engine renders.
+ */
+class EmailTemplateRendererTest {
+
+    private static final String VALUE = "<b>Tom & 'Jerry'</b> \"é\" ";
+
+    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        var resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        renderer = new EmailTemplateRenderer(templateEngine);
+        renderer.init();
+    }
+
+    @Test
+    void shouldRenderLikeTheEngine() {
+        for (var template : EmailTemplateName.values()) {
+            var compiled = renderer.compiled(template);
+            assertNotNull(compiled, template + " was not precompiled");
+            for (var rowCount : List.of(0, 1, 3)) {
+                var variables = variables(template, rowCount);
+                assertTrue(compiled.accepts(variables));
+                assertEquals(process(template, variables), compiled.render(variables), template + " with " + rowCount + " rows");
+            }
+        }
+    }
+
+    @Test
+    void shouldRenderMissingRowFieldsLikeTheEngine() {
+        var template = EmailTemplateName.OVERDUE_LOANS;
+        var withNulls = variables(template, 3);
+        var withEmptyStrings = variables(template, 3);
+        row(withNulls, 1).put("title", null);
+        row(withNulls, 2).put("authorName", null);
+        row(withEmptyStrings, 1).put("title", "");
+        row(withEmptyStrings, 2).put("authorName", "");
+
+        var expected = process(template, withNulls);
+
+        assertFalse(renderer.compiled(template).accepts(withNulls));
+        assertEquals(expected, renderer.render(template, withNulls));
+        assertEquals(expected, renderer.compiled(template).render(withEmptyStrings));
+    }
+
+    @Test
+    void shouldQueueTheDigestOfLoansWithoutTitleOrAuthor() {
+        var outboxRepository = mock(OutboxEmailRepository.class);
+        var emailService = new EmailService(renderer, outboxRepository);
+        var dueDate = LocalDateTime.of(2026, 1, 2, 0, 0);
+
+        emailService.sendOverdueLoansDigest("reader@mail.com", "Reader", List.of(
+                new OverdueLoan(1, dueDate, 7, null, "Author"),
+                new OverdueLoan(2, dueDate, 7, "Title", null)
+        ));
+
+        var email = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(outboxRepository).save(email.capture());
+        var loans = new ArrayList<Map<String, Object>>();
+        loans.add(Map.of("title", "", "authorName", "Author", "dueDate", "2026-01-02"));
+        loans.add(Map.of("title", "Title", "authorName", "", "dueDate", "2026-01-02"));
+        assertEquals(process(EmailTemplateName.OVERDUE_LOANS, Map.of("username", "Reader", "loans", loans)), email.getValue().getBody());
+    }
+
+    private static Map<String, Object> variables(EmailTemplateName template, int rowCount) {
+        var variables = new HashMap<String, Object>();
+        template.getVariables().forEach(name -> variables.put(name, VALUE + name));
+        if (template.getRowsVariable() != null) {
+            var rows = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < rowCount; i++) {
+                var row = new HashMap<String, Object>();
+                for (var field : template.getRowFields()) {
+                    row.put(field, VALUE + field + i);
+                }
+                rows.add(row);
+            }
+            variables.put(template.getRowsVariable(), rows);
+        }
+        return variables;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> row(Map<String, Object> variables, int index) {
+        return ((List<Map<String, Object>>) variables.get(EmailTemplateName.OVERDUE_LOANS.getRowsVariable())).get(index);
+    }
+
+    private String process(EmailTemplateName template, Map<String, Object> variables) {
+        var context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template.getName(), context);
+    }
+}
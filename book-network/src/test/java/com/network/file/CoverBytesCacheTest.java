@@ -0,0 +1,174 @@
+package com.network.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.network.TestFixture;
+import com.network.book.BookRepository;
+import com.network.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Covers up to 1KB here are read from the store once and then served from the cache; larger ones are streamed
+ * from the store every time, and a replaced cover leaves the cache with the upload that replaced it.
+ */
+@SpringBootTest(properties = "application.file.cover.cache.maximum-entry-size=1KB")
+@AutoConfigureMockMvc
+class CoverBytesCacheTest {
+
+    private static Path uploadRoot;
+
+    @Autowired
+    private CoverBytesCache coverBytesCache;
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixture fixture;
+    @SpyBean
+    private BlobStore blobStore;
+
+    private final List<String> uploadedKeys = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void uploadRoot(DynamicPropertyRegistry registry) throws IOException {
+        uploadRoot = Files.createTempDirectory("cover-cache-");
+        registry.add("application.file.upload.photos-output-path", uploadRoot::toString);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fixture.cleanUp();
+        storedFileRepository.deleteAllById(uploadedKeys);
+        FileSystemUtils.deleteRecursively(uploadRoot);
+        Files.createDirectories(uploadRoot);
+    }
+
+    @Test
+    void shouldReadACoverFromTheStoreOnce() throws IOException {
+        var key = store("covers/small.png", new byte[512]);
+
+        var first = coverBytesCache.get(key);
+        var second = coverBytesCache.get(key);
+
+        verify(blobStore, times(1)).resource(key);
+        assertNull(second.resource());
+        assertTrue(second.bytes().isReadOnly());
+        assertArrayEquals(new byte[512], bytes(second.bytes()));
+        // every reader gets its own position on the shared bytes
+        bytes(first.bytes());
+        assertArrayEquals(new byte[512], bytes(coverBytesCache.get(key).bytes()));
+    }
+
+    @Test
+    void shouldStreamACoverAboveTheEntrySize() throws IOException {
+        var key = store("covers/large.png", new byte[2048]);
+
+        for (int i = 0; i < 2; i++) {
+            var cover = coverBytesCache.get(key);
+            assertNull(cover.bytes());
+            assertNotNull(cover.resource());
+            assertArrayEquals(new byte[2048], cover.resource().getContentAsByteArray());
+        }
+        assertNull(cache().getIfPresent(key));
+    }
+
+    @Test
+    void shouldEvictAReplacedCover() throws Exception {
+        var owner = fixture.newUser();
+        var book = fixture.newBook(owner);
+        var previous = png(1);
+        upload(book.getId(), previous, owner);
+        var previousKey = bookRepository.findById(book.getId()).orElseThrow().getBookCover();
+        uploadedKeys.add(previousKey);
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1")
+                        .param("v", FileUtils.contentHash(previousKey)))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(previous));
+        assertNotNull(cache().getIfPresent(previousKey));
+
+        var replacement = png(2);
+        upload(book.getId(), replacement, owner);
+        var replacementKey = bookRepository.findById(book.getId()).orElseThrow().getBookCover();
+        uploadedKeys.add(replacementKey);
+
+        assertNull(cache().getIfPresent(previousKey));
+        mockMvc.perform(get("/api/v1/books/cover/{id}", book.getId()).contextPath("/api/v1")
+                        .param("v", FileUtils.contentHash(replacementKey)))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(replacement));
+    }
+
+    private String store(String key, byte[] content) throws IOException {
+        var source = Files.createTempFile("cover-", ".png");
+        Files.write(source, content);
+        try {
+            blobStore.put(key, source, "image/png");
+        } finally {
+            Files.deleteIfExists(source);
+        }
+        return key;
+    }
+
+    private void upload(Integer bookId, byte[] content, User owner) throws Exception {
+        mockMvc.perform(multipart("/api/v1/books/cover/{id}", bookId)
+                        .file(new MockMultipartFile("file", "cover.png", "image/png", content))
+                        .contextPath("/api/v1")
+                        .with(authentication(fixture.login(owner))))
+                .andExpect(status().isAccepted());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, ByteBuffer> cache() {
+        return (Cache<String, ByteBuffer>) ReflectionTestUtils.getField(coverBytesCache, "cache");
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // a few dozen bytes, the first pixel tells two covers apart
+    private static byte[] png(int rgb) throws IOException {
+        var image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb);
+        var content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+        return content.toByteArray();
+    }
+}
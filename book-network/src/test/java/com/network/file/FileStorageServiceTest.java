@@ -0,0 +1,141 @@
+package com.network.file;
+
+import com.network.TestFixture;
+import com.network.book.BookRepository;
+import com.network.exception.OperationNotPermittedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Uploads are rejected before anything is stored, and a storage failure leaves the book with its previous cover.
+ */
+@SpringBootTest(properties = {
+        "application.file.upload.max-size=8KB",
+        "application.file.upload.max-pixels=10000"
+})
+@AutoConfigureMockMvc
+class FileStorageServiceTest {
+
+    private static Path uploadRoot;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixture fixture;
+    @Autowired
+    private BookRepository bookRepository;
+    @SpyBean
+    private BlobStore blobStore;
+
+    private String uploadedKey;
+
+    @DynamicPropertySource
+    static void uploadRoot(DynamicPropertyRegistry registry) throws IOException {
+        uploadRoot = Files.createTempDirectory("file-storage-");
+        registry.add("application.file.upload.photos-output-path", uploadRoot::toString);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fixture.cleanUp();
+        if (uploadedKey != null) {
+            storedFileRepository.deleteById(uploadedKey);
+        }
+        FileSystemUtils.deleteRecursively(uploadRoot);
+        Files.createDirectories(uploadRoot);
+    }
+
+    @Test
+    void shouldRejectAFileAboveTheMaximumSize() throws IOException {
+        // noise does not compress, 64x64 pixels take well over 8KB
+        var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        var random = new Random(1);
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        assertRejected(png(image), "exceeds the maximum size");
+    }
+
+    @Test
+    void shouldRejectAFileThatIsNotAnImage() throws IOException {
+        // a PDF renamed to .png
+        assertRejected("%PDF-1.7 not a cover".getBytes(), "not a supported image");
+    }
+
+    @Test
+    void shouldRejectAnImageAboveThePixelLimitFromItsHeader() throws IOException {
+        assertRejected(png(new BufferedImage(101, 100, BufferedImage.TYPE_INT_RGB)), "maximum of 10000 pixels");
+    }
+
+    @Test
+    void shouldKeepTheCoverWhenTheFileCannotBeStored() throws Exception {
+        var owner = fixture.newUser();
+        var book = fixture.newBook(owner, builder -> builder.bookCover("covers/aa/bb/previous.png"));
+        doThrow(new IOException("disk full")).when(blobStore).put(anyString(), any(), anyString());
+        var content = png(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+        var upload = new MockMultipartFile("file", "cover.png", "image/png", content);
+        var hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        uploadedKey = "covers/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png";
+
+        mockMvc.perform(multipart("/api/v1/books/cover/{id}", book.getId()).file(upload).contextPath("/api/v1")
+                        .with(authentication(fixture.login(owner))))
+                .andExpect(status().isServiceUnavailable());
+
+        assertEquals("covers/aa/bb/previous.png", bookRepository.findById(book.getId()).orElseThrow().getBookCover());
+        // the reference the upload took was released again
+        assertEquals(0, storedFileRepository.findById(uploadedKey).orElseThrow().getReferenceCount());
+    }
+
+    private void assertRejected(byte[] content, String reason) throws IOException {
+        var upload = new MockMultipartFile("file", "cover.png", "image/png", content);
+
+        var e = assertThrows(OperationNotPermittedException.class, () -> fileStorageService.saveFile(upload));
+
+        assertTrue(e.getMessage().contains(reason), e.getMessage());
+        try (var files = Files.walk(uploadRoot)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count(), "the temp file is deleted and nothing stored");
+        }
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        var content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+        return content.toByteArray();
+    }
+}
@@ -0,0 +1,204 @@
+package com.network.file;
+
+import com.network.TestFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Sweeps a local upload tree in quarantine mode, two keys per batch so the run resumes from its checkpoint.
+ */
+@SpringBootTest(properties = {
+        "application.file.gc.mode=QUARANTINE",
+        "application.file.gc.grace-period=P1D",
+        "application.file.gc.quarantine-retention=P10D",
+        "application.file.gc.batch-size=2",
+        "application.file.gc.io-budget=100000"
+})
+class OrphanedFileSweeperTest {
+
+    private static Path uploadRoot;
+
+    @Autowired
+    private OrphanedFileSweeper sweeper;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @SpyBean
+    private BlobStore blobStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+    @Autowired
+    private TestFixture fixture;
+
+    @DynamicPropertySource
+    static void uploadRoot(DynamicPropertyRegistry registry) throws IOException {
+        uploadRoot = Files.createTempDirectory("orphan-sweep-");
+        registry.add("application.file.upload.photos-output-path", uploadRoot::toString);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fixture.cleanUp();
+        // every sweep walks the whole tree, the next test starts from an empty one
+        FileSystemUtils.deleteRecursively(uploadRoot);
+        Files.createDirectories(uploadRoot);
+    }
+
+    @Test
+    void shouldQuarantineOnlyUnreferencedFilesOlderThanTheGracePeriod() throws Exception {
+        var old = Instant.now().minus(Duration.ofDays(2));
+        var cover = file("aa/bb", ".jpg", old);
+        var thumbnail = file("aa/bb", "_96.jpg", old);
+        var orphan = file("cc/dd", ".jpg", old);
+        var recentlyDereferenced = file("cc/dd", ".png", old);
+        var fresh = file("ee/ff", ".png", Instant.now());
+        var legacy = file("users/1", ".jpg", old);
+        saveBook(cover, thumbnail);
+        storedFile(orphan, LocalDateTime.now().minusDays(2));
+        storedFile(recentlyDereferenced, LocalDateTime.now());
+
+        var report = sweeper.sweep();
+
+        // the covers orphan is listed once more in quarantine/, which sorts between covers/ and users/
+        assertEquals(7, report.scanned());
+        assertEquals(2, report.orphans());
+        assertTrue(report.passCompleted());
+        for (var collected : List.of(orphan, legacy)) {
+            assertFalse(Files.exists(uploadRoot.resolve(collected)), collected);
+            assertTrue(Files.exists(uploadRoot.resolve("quarantine").resolve(collected)), collected);
+        }
+        assertFalse(storedFileRepository.existsById(orphan));
+        for (var kept : List.of(cover, thumbnail, recentlyDereferenced, fresh)) {
+            assertTrue(Files.exists(uploadRoot.resolve(kept)), kept);
+        }
+        assertTrue(storedFileRepository.existsById(recentlyDereferenced));
+    }
+
+    @Test
+    void shouldKeepAFileUploadedAgainWhileItIsCollected() throws Exception {
+        var image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, UUID.randomUUID().hashCode());
+        var content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+        var hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.toByteArray()));
+        var key = "covers/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png";
+        var path = uploadRoot.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.toByteArray());
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        storedFile(key, LocalDateTime.now().minusDays(2));
+
+        // the sweep stops right before moving the orphan, while it holds its row
+        var collecting = new CountDownLatch(1);
+        var resume = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            collecting.countDown();
+            resume.await(30, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(blobStore).move(eq(key), eq("quarantine/" + key));
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var sweep = executor.submit(sweeper::sweep);
+            assertTrue(collecting.await(30, TimeUnit.SECONDS));
+            var upload = executor.submit(() -> fileStorageService.saveFile(
+                    new MockMultipartFile("file", "cover.png", "image/png", content.toByteArray())));
+            awaitLockWait();
+            resume.countDown();
+
+            assertEquals(1, sweep.get(30, TimeUnit.SECONDS).orphans());
+            assertEquals(key, upload.get(30, TimeUnit.SECONDS).getPath());
+        } finally {
+            resume.countDown();
+            executor.shutdownNow();
+        }
+
+        assertTrue(Files.exists(uploadRoot.resolve("quarantine").resolve(key)));
+        assertTrue(Files.exists(path), "the upload stored the file again");
+        assertEquals(1, storedFileRepository.findById(key).orElseThrow().getReferenceCount());
+    }
+
+    @Test
+    void shouldPurgeQuarantinedFilesOnceTheirRetentionIsOver() throws Exception {
+        var expired = file("quarantine/covers/aa/bb", ".jpg", Instant.now().minus(Duration.ofDays(11)));
+        var retained = file("quarantine/covers/cc/dd", ".jpg", Instant.now().minus(Duration.ofDays(9)));
+
+        var report = sweeper.sweep();
+
+        assertEquals(1, report.purged());
+        assertEquals(0, report.orphans());
+        assertFalse(Files.exists(uploadRoot.resolve(expired)));
+        assertTrue(Files.exists(uploadRoot.resolve(retained)));
+    }
+
+    /**
+     * Waits until a session is blocked on a lock, the upload taking its reference on the row the sweep holds.
+     */
+    private void awaitLockWait() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            var waiting = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Long.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private String file(String directory, String suffix, Instant lastModified) throws IOException {
+        var key = (directory.startsWith("users/") || directory.startsWith("quarantine/") ? "" : "covers/")
+                + directory + "/" + UUID.randomUUID() + suffix;
+        var path = uploadRoot.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(path, FileTime.from(lastModified));
+        return key;
+    }
+
+    private void storedFile(String key, LocalDateTime referencedAt) {
+        storedFileRepository.save(StoredFile.builder()
+                .path(key)
+                .hash(UUID.randomUUID().toString().replace("-", ""))
+                .size(3)
+                .referenceCount(0)
+                .createdAt(referencedAt)
+                .referencedAt(referencedAt)
+                .build());
+    }
+
+    private void saveBook(String cover, String thumbnail) {
+        fixture.newBook(fixture.newUser(), book -> book.bookCover(cover).bookCoverThumbnail(thumbnail));
+    }
+}
@@ -0,0 +1,256 @@
+package com.network.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the S3 store against an in-process fake of the bucket. The same store works against MinIO
+ * from docker-compose with application.file.storage.type=s3.
+ */
+class S3BlobStoreTest {
+
+    private static final int PART_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final FakeS3Client s3 = new FakeS3Client();
+    private final S3Presigner presigner = S3Presigner.builder()
+            .region(Region.US_EAST_1)
+            .endpointOverride(URI.create("http://localhost:9000"))
+            .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("minioadmin", "minioadmin")))
+            .build();
+    private final S3BlobStore store = new S3BlobStore(
+            s3,
+            presigner,
+            "book-covers",
+            "max-age=31536000, immutable",
+            2 * PART_SIZE,
+            PART_SIZE,
+            Duration.ofHours(1),
+            Executors.newFixedThreadPool(3)
+    );
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void shouldStoreSmallFilesInOneRequest() throws Exception {
+        var content = randomBytes(PART_SIZE);
+        var key = "covers/aa/bb/" + UUID.randomUUID() + ".jpg";
+
+        store.put(key, file(content), "image/jpeg");
+
+        assertTrue(store.exists(key));
+        try (var in = store.open(key)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(content.length, store.resource(key).contentLength());
+        assertEquals(0, s3.partsUploaded.get());
+
+        store.delete(key);
+
+        assertFalse(store.exists(key));
+        assertNull(store.resource(key));
+        assertThrows(NoSuchFileException.class, () -> store.open(key));
+    }
+
+    @Test
+    void shouldUploadLargeFilesInParallelParts() throws Exception {
+        var content = randomBytes(4 * PART_SIZE + 100);
+        var key = "covers/cc/dd/" + UUID.randomUUID() + ".png";
+
+        store.put(key, file(content), "image/png");
+
+        assertEquals(5, s3.partsUploaded.get());
+        assertTrue(s3.uploads.isEmpty());
+        try (var in = store.open(key)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldAbortTheMultipartUploadWhenAPartFails() throws Exception {
+        var content = randomBytes(3 * PART_SIZE);
+        var key = "covers/ee/ff/" + UUID.randomUUID() + ".png";
+        s3.failingPart = 2;
+
+        assertThrows(IOException.class, () -> store.put(key, file(content), "image/png"));
+
+        assertFalse(store.exists(key));
+        assertTrue(s3.uploads.isEmpty());
+    }
+
+    @Test
+    void shouldPresignDirectUrls() {
+        var url = store.directUrl("covers/aa/bb/cover.jpg").orElseThrow();
+
+        assertTrue(url.uri().toString().startsWith("http://localhost:9000/book-covers/covers/aa/bb/cover.jpg?"));
+        assertTrue(url.uri().getQuery().contains("X-Amz-Signature="));
+    }
+
+    private Path file(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "blob-", ".tmp"), content);
+    }
+
+    private static byte[] randomBytes(int length) {
+        var bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Keeps objects in memory, only the operations used by the store are implemented.
+     */
+    private static class FakeS3Client implements S3Client {
+
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        private final AtomicInteger partsUploaded = new AtomicInteger();
+        private volatile int failingPart;
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            objects.put(request.key(), read(body));
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            var uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new ConcurrentHashMap<>());
+            return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            if (request.partNumber() == failingPart) {
+                throw S3Exception.builder().statusCode(500).message("part failed").build();
+            }
+            var content = read(body);
+            assertEquals(request.contentLength(), content.length);
+            uploads.get(request.uploadId()).put(request.partNumber(), content);
+            partsUploaded.incrementAndGet();
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            var parts = uploads.remove(request.uploadId());
+            var object = new java.io.ByteArrayOutputStream();
+            var partNumber = 1;
+            for (CompletedPart part : request.multipartUpload().parts()) {
+                assertEquals(partNumber++, part.partNumber());
+                object.writeBytes(parts.get(part.partNumber()));
+            }
+            assertEquals(Set.copyOf(parts.keySet()).size(), request.multipartUpload().parts().size());
+            objects.put(request.key(), object.toByteArray());
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            uploads.remove(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+            var object = objects.get(request.key());
+            if (object == null) {
+                throw NoSuchKeyException.builder().statusCode(404).build();
+            }
+            return HeadObjectResponse.builder().contentLength((long) object.length).build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            var object = objects.get(request.key());
+            if (object == null) {
+                throw NoSuchKeyException.builder().statusCode(404).build();
+            }
+            return new ResponseInputStream<>(
+                    GetObjectResponse.builder().contentLength((long) object.length).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(object))
+            );
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            objects.remove(request.key());
+            return DeleteObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static byte[] read(RequestBody body) {
+            try (var in = body.contentStreamProvider().newStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
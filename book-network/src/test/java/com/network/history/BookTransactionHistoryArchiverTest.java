@@ -0,0 +1,101 @@
+package com.network.history;
+
+import com.network.TestFixture;
+import com.network.book.Book;
+import com.network.book.BookService;
+import com.network.book.BorrowedBookResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Closed loans older than the minimum age move to the archive table, in batches of two here,
+ * and the history listings still show them through the union view.
+ */
+@SpringBootTest(properties = "application.history.archive.batch-size=2")
+class BookTransactionHistoryArchiverTest {
+
+    private static final int CLOSED_LOANS = 3;
+
+    @Autowired
+    private BookTransactionHistoryArchiver archiver;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixture fixture;
+
+    private Book book;
+    private Authentication owner;
+    private Authentication borrower;
+    private final Set<Integer> closedLoans = new HashSet<>();
+    private Integer openLoan;
+
+    @BeforeEach
+    void setUp() {
+        var ownerUser = fixture.newUser();
+        book = fixture.newBook(ownerUser);
+        owner = fixture.login(ownerUser);
+        borrower = fixture.login(fixture.newUser());
+        for (int i = 0; i < CLOSED_LOANS; i++) {
+            closedLoans.add(bookService.borrowBooks(book.getId(), borrower));
+            bookService.returnedBorrowBooks(book.getId(), borrower);
+            bookService.approveReturnBooks(book.getId(), owner);
+        }
+        openLoan = bookService.borrowBooks(book.getId(), borrower);
+        jdbcTemplate.update("""
+                UPDATE book_transaction_history
+                SET created_date = created_date - INTERVAL '2 years'
+                WHERE book_id = ?
+                """, book.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldMoveEachClosedLoanOnce() {
+        archiver.archive();
+
+        assertEquals(closedLoans, new HashSet<>(ids("book_transaction_history_archive")));
+        assertEquals(List.of(openLoan), ids("book_transaction_history"));
+
+        archiver.archive();
+
+        assertEquals(CLOSED_LOANS, ids("book_transaction_history_archive").size());
+        assertEquals(List.of(openLoan), ids("book_transaction_history"));
+    }
+
+    @Test
+    void shouldStillListArchivedLoans() {
+        archiver.archive();
+
+        var borrowed = bookService.findAllBorrowedBooksByOwner(0, 10, null, borrower);
+        var returned = bookService.findAllReturnedBooks(0, 10, null, owner);
+
+        assertEquals(CLOSED_LOANS + 1, borrowed.getTotalElements());
+        assertEquals(CLOSED_LOANS + 1, returned.getTotalElements());
+        assertEquals(CLOSED_LOANS, borrowed.getContent().stream().filter(BorrowedBookResponse::isReturnedApprove).count());
+        // the cursor listing continues from the hot table into the archive
+        var first = bookService.findAllBorrowedBooksByOwner(0, 2, null, borrower);
+        var rest = bookService.findAllBorrowedBooksByOwner(0, 10, first.getNextCursor(), borrower);
+        assertEquals(CLOSED_LOANS + 1, first.getContent().size() + rest.getContent().size());
+    }
+
+    private List<Integer> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE book_id = ?", Integer.class, book.getId());
+    }
+}
@@ -0,0 +1,111 @@
+package com.network.history;
+
+import com.network.TestFixture;
+import com.network.book.BookService;
+import com.network.email.OutboxEmail;
+import com.network.email.OutboxEmailRepository;
+import com.network.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One page holds a single loan here, so a borrower's loans spread over several pages of the scan
+ * and must still end up in a single digest.
+ */
+@SpringBootTest(properties = "application.book.loan.overdue.batch-size=1")
+class OverdueLoanScannerTest {
+
+    @Autowired
+    private OverdueLoanScanner scanner;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldRemindEachBorrowerOnceOfAllTheirOverdueLoans() {
+        var owner = fixture.newUser();
+        var late = fixture.newUser();
+        var first = lend(owner, late, LocalDateTime.now().minusDays(3));
+        var second = lend(owner, late, LocalDateTime.now().minusDays(1));
+        var onTime = fixture.newUser();
+        var notDue = lend(owner, onTime, LocalDateTime.now().plusDays(1));
+
+        scanner.scan();
+
+        var digests = mailsTo(late);
+        assertEquals(1, digests.size());
+        assertTrue(digests.get(0).getBody().contains(title(first)));
+        assertTrue(digests.get(0).getBody().contains(title(second)));
+        assertTrue(mailsTo(onTime).isEmpty());
+        assertNotNull(reminderSentDate(first));
+        assertNotNull(reminderSentDate(second));
+        assertNull(reminderSentDate(notDue));
+    }
+
+    @Test
+    void shouldSkipLoansRemindedWithinTheInterval() {
+        var owner = fixture.newUser();
+        var late = fixture.newUser();
+        var loan = lend(owner, late, LocalDateTime.now().minusDays(3));
+
+        scanner.scan();
+        scanner.scan();
+        assertEquals(1, mailsTo(late).size());
+
+        // a day later the borrower is reminded again
+        jdbcTemplate.update("UPDATE book_transaction_history SET reminder_sent_date = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(2)), loan);
+        scanner.scan();
+        assertEquals(2, mailsTo(late).size());
+    }
+
+    /**
+     * Lends a new book and moves the due date of the loan.
+     */
+    private Integer lend(User owner, User borrower, LocalDateTime dueDate) {
+        var book = fixture.newBook(owner, builder -> builder.title("title " + UUID.randomUUID()));
+        var loan = bookService.borrowBooks(book.getId(), fixture.login(borrower));
+        jdbcTemplate.update("UPDATE book_transaction_history SET due_date = ? WHERE id = ?", Timestamp.valueOf(dueDate), loan);
+        return loan;
+    }
+
+    private String title(Integer loan) {
+        return jdbcTemplate.queryForObject(
+                "SELECT book.title FROM book_transaction_history history JOIN book ON book.id = history.book_id WHERE history.id = ?",
+                String.class, loan);
+    }
+
+    private Timestamp reminderSentDate(Integer loan) {
+        return jdbcTemplate.queryForObject(
+                "SELECT reminder_sent_date FROM book_transaction_history WHERE id = ?", Timestamp.class, loan);
+    }
+
+    private List<OutboxEmail> mailsTo(User user) {
+        return outboxRepository.findAll().stream()
+                .filter(mail -> mail.getRecipient().equals(user.getEmail()))
+                .toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.network.security;
+
+import com.network.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With its single hashing thread held, the encoder refuses at once when its one queue slot is taken too, and
+ * after max-wait otherwise; a sign-in refused either way is answered 503 with Retry-After.
+ */
+@SpringBootTest(properties = {
+        "application.security.password.pool-size=1",
+        "application.security.password.queue-capacity=1",
+        "application.security.password.max-wait=PT0.2S",
+        "application.security.password.retry-after=PT7S"
+})
+@AutoConfigureMockMvc
+class BoundedPasswordEncoderTest {
+
+    private static final String SIGN_IN = """
+            {"email": "someone@mail.com", "password": "password"}
+            """;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private ThreadPoolExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        // holds the hashing thread
+        executor.submit(this::awaitRelease);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        // the next test needs the thread and the queue slot free again
+        awaitIdle();
+    }
+
+    @Test
+    void shouldRefuseAtOnceWhenTheQueueIsFull() throws Exception {
+        executor.submit(this::awaitRelease);
+
+        var e = assertThrows(PasswordHashingBusyException.class, () -> passwordEncoder.encode("password"));
+        assertEquals(7, e.getRetryAfter().toSeconds());
+        mockMvc.perform(post("/api/v1/auth/authenticate").contextPath("/api/v1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SIGN_IN))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "7"));
+    }
+
+    @Test
+    void shouldRefuseAHashNotDoneWithinTheMaximumWait() throws Exception {
+        var startedAt = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> passwordEncoder.encode("password"));
+        assertTrue(System.nanoTime() - startedAt >= 200_000_000L);
+
+        mockMvc.perform(post("/api/v1/auth/authenticate").contextPath("/api/v1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SIGN_IN))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "7"));
+
+        // the refused hash gave its queue slot back once the thread is free again
+        release.countDown();
+        awaitIdle();
+        assertTrue(passwordEncoder.matches("password", passwordEncoder.encode("password")));
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Void awaitRelease() throws InterruptedException {
+        release.await();
+        return null;
+    }
+}
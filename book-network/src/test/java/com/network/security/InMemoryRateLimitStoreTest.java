@@ -0,0 +1,64 @@
+package com.network.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A bucket lets a full burst through, then one request per refilled token, and tells how long until the next one.
+ */
+class InMemoryRateLimitStoreTest {
+
+    private InMemoryRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRateLimitStore();
+        ReflectionTestUtils.setField(store, "idleTimeout", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(store, "maximumSize", 1000L);
+        store.init();
+    }
+
+    @Test
+    void shouldLetTheBurstThroughThenTellTheWait() {
+        var limit = new RateLimit(3, Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, store.tryConsume("user:1", limit));
+        }
+
+        var wait = store.tryConsume("user:1", limit);
+
+        // one token every 20 seconds
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(20), wait + "ns");
+    }
+
+    @Test
+    void shouldRefillOneTokenPerPeriodShare() throws InterruptedException {
+        var limit = new RateLimit(2, Duration.ofMillis(200));
+        store.tryConsume("user:1", limit);
+        store.tryConsume("user:1", limit);
+        var wait = store.tryConsume("user:1", limit);
+        assertTrue(wait > 0);
+
+        TimeUnit.NANOSECONDS.sleep(wait);
+
+        assertEquals(0, store.tryConsume("user:1", limit));
+        assertTrue(store.tryConsume("user:1", limit) > 0, "only the one refilled token");
+    }
+
+    @Test
+    void shouldKeepOneBucketPerKey() {
+        var limit = new RateLimit(1, Duration.ofMinutes(1));
+        assertEquals(0, store.tryConsume("user:1", limit));
+        assertTrue(store.tryConsume("user:1", limit) > 0);
+
+        assertEquals(0, store.tryConsume("user:2", limit));
+        assertEquals(0, store.tryConsume("ip:10.0.0.1", limit));
+    }
+}
@@ -0,0 +1,85 @@
+package com.network.security;
+
+import com.network.TestFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two reads an hour here, so the third is refused with the wait until the next token, 30 minutes rounded up
+ * to whole seconds. Signed-in users are limited by account, anonymous clients by address.
+ */
+@SpringBootTest(properties = {
+        "application.security.rate-limit.reads.capacity=2",
+        "application.security.rate-limit.reads.period=PT1H"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldRefuseTheRequestBeyondTheLimit() throws Exception {
+        var user = fixture.login(fixture.newUser());
+        assertNotLimited(read(user, "10.0.0.1"));
+        assertNotLimited(read(user, "10.0.0.1"));
+
+        read(user, "10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1800"))
+                .andExpect(jsonPath("$.error").value("Too many requests, retry in 1800s"));
+    }
+
+    @Test
+    void shouldLimitAUserAcrossAddresses() throws Exception {
+        var user = fixture.login(fixture.newUser());
+        assertNotLimited(read(user, "10.0.1.1"));
+        assertNotLimited(read(user, "10.0.1.2"));
+
+        read(user, "10.0.1.3").andExpect(status().isTooManyRequests());
+        // another user behind the same address has a bucket of their own
+        assertNotLimited(read(fixture.login(fixture.newUser()), "10.0.1.1"));
+    }
+
+    @Test
+    void shouldLimitAnonymousClientsByAddress() throws Exception {
+        assertNotLimited(read(null, "10.0.2.1"));
+        assertNotLimited(read(null, "10.0.2.1"));
+
+        read(null, "10.0.2.1").andExpect(status().isTooManyRequests());
+        assertNotLimited(read(null, "10.0.2.2"));
+    }
+
+    private ResultActions read(Authentication user, String address) throws Exception {
+        var request = get(user == null ? "/api/v1/books/cover/0" : "/api/v1/books/owner").contextPath("/api/v1")
+                .with(servletRequest -> {
+                    servletRequest.setRemoteAddr(address);
+                    return servletRequest;
+                });
+        return mockMvc.perform(user == null ? request : request.with(authentication(user)));
+    }
+
+    private static void assertNotLimited(ResultActions result) {
+        assertNotEquals(429, result.andReturn().getResponse().getStatus());
+    }
+}
@@ -0,0 +1,99 @@
+package com.network.security;
+
+import com.network.TestFixture;
+import com.network.common.BloomFilter;
+import com.network.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A revoked token is rejected from the next request on, and stays rejected until it expires, whichever
+ * instance revoked it and however often the filter was rebuilt in between.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void shouldRejectATokenOnceLoggedOut() throws Exception {
+        var user = fixture.newUser();
+        var token = "Bearer " + jwtService.generateToken(Map.of("userId", user.getId(), "fullName", user.getFullName()), user);
+        mockMvc.perform(get("/api/v1/books/owner").contextPath("/api/v1").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/auth/logout").contextPath("/api/v1").header("Authorization", token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/books/owner").contextPath("/api/v1").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldKeepLiveRevocationsWhenPruningRebuildsTheFilter() {
+        var user = fixture.newUser();
+        var expired = claims(user, Instant.now().minusSeconds(60));
+        var live = claims(user, Instant.now().plusSeconds(3600));
+        tokenRevocationService.revoke(expired);
+        tokenRevocationService.revoke(live);
+
+        tokenRevocationService.prune();
+
+        assertTrue(tokenRevocationService.isRevoked(live.tokenId()));
+        assertFalse(revokedTokenRepository.existsById(expired.tokenId()));
+        // the rebuilt filter no longer sends the pruned token to the table
+        assertFalse(filter().mightContain(expired.tokenId()));
+    }
+
+    @Test
+    void shouldPickUpRevocationsOfOtherInstancesOnRefresh() {
+        var user = fixture.newUser();
+        var claims = claims(user, Instant.now().plusSeconds(3600));
+        // revoked by another instance, straight into the table
+        revokedTokenRepository.revoke(claims.tokenId(), user.getId(), LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked(claims.tokenId()));
+    }
+
+    private BloomFilter filter() {
+        return (BloomFilter) ReflectionTestUtils.getField(tokenRevocationService, "revokedTokenIds");
+    }
+
+    private static JwtClaims claims(User user, Instant expiration) {
+        return new JwtClaims(UUID.randomUUID().toString(), user.getEmail(), user.getId(), user.getFullName(), expiration, List.of());
+    }
+}